@@ -0,0 +1,84 @@
+#!/bin/bash
+#
+# Compares the startup time of the JVM build (target/solutions.jar), with and without its class data sharing
+# archive, with the native build (target/solutions).
+#
+# Build both first:
+#   mvn package            -> target/solutions.jar
+#   mvn -Pnative package   -> target/solutions (requires GraalVM)
+#   mvn -Pcds package      -> target/solutions.jsa (optional, class data sharing archive for the JAR)
+#
+# Usage:
+#   scripts/startup-benchmark.sh [runs] [tool arguments...]
+#
+# Two times are measured for each build (average of all the runs, in milliseconds):
+#   - startup: running 'solutions --version'.
+#   - first prompt: time until the tool asks the first question ("(y/N)" or the options selector), using the
+#     given tool arguments (for example '-s schedule.csv'). It requires the token and organization to be
+#     available (.env file). The tool is stopped as soon as the prompt appears, so nothing is changed.
+
+RUNS=${1:-10}
+shift
+TOOL_ARGS=("$@")
+
+JAR=target/solutions.jar
+NATIVE=target/solutions
+ARCHIVE=target/solutions.jsa
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+# Prints the milliseconds until the command finishes
+time_to_exit() {
+    local start
+    start=$(now_ms)
+    "$@" >/dev/null 2>&1
+    echo $(($(now_ms) - start))
+}
+
+# Prints the milliseconds until the command prints a prompt. Then the command is stopped
+time_to_prompt() {
+    local start output char
+    start=$(now_ms)
+    output=""
+    coproc TOOL { "$@" 2>&1; }
+    while IFS= read -r -n1 -d '' char <&"${TOOL[0]}"; do
+        output+="$char"
+        if [[ "$output" == *"(y/N)"* || "$output" == *"(type to filter"* ]]; then
+            echo $(($(now_ms) - start))
+            kill "$TOOL_PID" 2>/dev/null
+            wait "$TOOL_PID" 2>/dev/null
+            return
+        fi
+    done
+    echo "-" # The tool finished without prompting
+}
+
+average() {
+    local measure=$1
+    shift
+    local total=0 count=0 value
+    for ((run = 0; run < RUNS; run++)); do
+        value=$($measure "$@")
+        [[ "$value" == "-" ]] && { echo "n/a"; return; }
+        total=$((total + value))
+        count=$((count + 1))
+    done
+    echo $((total / count))
+}
+
+benchmark() {
+    local name=$1
+    shift
+    printf "%-8s startup: %6s ms" "$name" "$(average time_to_exit "$@" --version)"
+    if [[ ${#TOOL_ARGS[@]} -gt 0 || -f .env ]]; then
+        printf "   first prompt: %6s ms" "$(average time_to_prompt "$@" "${TOOL_ARGS[@]}")"
+    fi
+    echo
+}
+
+echo "Average of $RUNS runs"
+[[ -f $JAR ]] && benchmark "JVM" java -jar "$JAR" || echo "JVM      $JAR not found (mvn package)"
+[[ -f $JAR && -f $ARCHIVE ]] && benchmark "JVM+CDS" java -XX:SharedArchiveFile="$ARCHIVE" -Xlog:cds=off -Xlog:cds+dynamic=off -jar "$JAR"
+[[ -x $NATIVE ]] && benchmark "Native" "$NATIVE" || echo "Native   $NATIVE not found (mvn -Pnative package)"
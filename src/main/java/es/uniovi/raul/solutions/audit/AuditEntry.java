@@ -0,0 +1,31 @@
+package es.uniovi.raul.solutions.audit;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.time.*;
+
+/**
+ * A grant or revoke made in GitHub, as recorded in the {@link AuditJournal}.
+ *
+ * @param time when the operation finished
+ * @param organization the organization of the team and the repository
+ * @param group the slug of the team of the group
+ * @param solution the name of the solution repository
+ * @param action grant or revoke
+ * @param successful whether GitHub accepted the operation
+ * @param latency how long the operation took
+ */
+public record AuditEntry(Instant time, String organization, String group, String solution, Action action,
+        boolean successful, Duration latency) {
+
+    public AuditEntry {
+        notNull(time, organization, group, solution, action, latency);
+    }
+
+    /**
+     * The change made to the access of the group.
+     */
+    public enum Action {
+        GRANT, REVOKE
+    }
+}
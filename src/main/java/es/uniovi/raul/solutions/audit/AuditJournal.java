@@ -0,0 +1,283 @@
+package es.uniovi.raul.solutions.audit;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+import static java.nio.file.StandardOpenOption.*;
+
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Append-only journal of the grants and revokes made in GitHub.
+ *
+ * The file is a sequence of fixed-size records written through a memory-mapped buffer, so appending an entry
+ * is just copying a few bytes to memory. The operating system writes them to disk, and the buffer is also
+ * forced to disk once per second (and on close). The file grows in chunks of {@value #CHUNK_RECORDS} records.
+ *
+ * <pre>
+ * Record ({@value #RECORD_SIZE} bytes; the first one is the file header: magic, version and record size)
+ *   0  long   time (epoch milliseconds). Zero marks an empty record: the end of the journal
+ *   8  int    latency (milliseconds)
+ *  12  byte   action (0 = grant, 1 = revoke)
+ *  13  byte   outcome (1 = success, 0 = failure)
+ *  14  byte   length of the organization
+ *  15  byte   length of the group
+ *  16  byte   length of the solution
+ *  20  bytes  organization (UTF-8, up to {@value #ORGANIZATION_BYTES} bytes)
+ *  60  bytes  group (UTF-8, up to {@value #GROUP_BYTES} bytes)
+ * 140  bytes  solution (UTF-8, up to {@value #SOLUTION_BYTES} bytes)
+ * </pre>
+ *
+ * The time is written last, so a record that was being written during a crash is not read.
+ *
+ * The file is not opened until the first entry is appended. While it is open, it is locked, so another process
+ * that tries to append to it fails instead of overwriting the same records. Reading it does not need the lock.
+ */
+public final class AuditJournal implements AutoCloseable {
+
+    static final int RECORD_SIZE = 256;
+    static final int CHUNK_RECORDS = 4096;
+
+    private static final long CHUNK_SIZE = (long) RECORD_SIZE * CHUNK_RECORDS;
+    private static final long MAGIC = 0x534F4C4155444954L; // "SOLAUDIT"
+    private static final int VERSION = 1;
+
+    private static final int TIME = 0;
+    private static final int LATENCY = 8;
+    private static final int ACTION = 12;
+    private static final int OUTCOME = 13;
+    private static final int ORGANIZATION_LENGTH = 14;
+    private static final int GROUP_LENGTH = 15;
+    private static final int SOLUTION_LENGTH = 16;
+    private static final int ORGANIZATION = 20;
+    private static final int ORGANIZATION_BYTES = 40;
+    private static final int GROUP = ORGANIZATION + ORGANIZATION_BYTES;
+    private static final int GROUP_BYTES = 80;
+    private static final int SOLUTION = GROUP + GROUP_BYTES;
+    private static final int SOLUTION_BYTES = RECORD_SIZE - SOLUTION;
+
+    private static final Duration FORCE_INTERVAL = Duration.ofSeconds(1);
+
+    private final Path file;
+
+    // Guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer chunk;
+    private long chunkIndex = -1;
+    private long nextRecord;
+    private boolean dirty;
+    private boolean closed;
+    private ScheduledExecutorService forcer;
+
+    public AuditJournal(Path file) {
+        notNull(file, "file");
+        this.file = file;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Appends an entry to the journal. Names that do not fit in their fields are truncated.
+     *
+     * @throws IOException if the journal cannot be written, or another process is appending to it
+     */
+    public synchronized void append(AuditEntry entry) throws IOException {
+        notNull(entry, "entry");
+        if (closed)
+            throw new IllegalStateException("The journal is closed.");
+        if (channel == null)
+            openForAppend();
+
+        long chunkOfRecord = nextRecord / CHUNK_RECORDS;
+        if (chunkOfRecord != chunkIndex)
+            mapChunk(chunkOfRecord);
+
+        int offset = (int) (nextRecord % CHUNK_RECORDS) * RECORD_SIZE;
+        byte[] organization = encode(entry.organization(), ORGANIZATION_BYTES);
+        byte[] group = encode(entry.group(), GROUP_BYTES);
+        byte[] solution = encode(entry.solution(), SOLUTION_BYTES);
+
+        chunk.putInt(offset + LATENCY, (int) Math.min(Integer.MAX_VALUE, entry.latency().toMillis()));
+        chunk.put(offset + ACTION, (byte) entry.action().ordinal());
+        chunk.put(offset + OUTCOME, (byte) (entry.successful() ? 1 : 0));
+        chunk.put(offset + ORGANIZATION_LENGTH, (byte) organization.length);
+        chunk.put(offset + GROUP_LENGTH, (byte) group.length);
+        chunk.put(offset + SOLUTION_LENGTH, (byte) solution.length);
+        chunk.put(offset + ORGANIZATION, organization);
+        chunk.put(offset + GROUP, group);
+        chunk.put(offset + SOLUTION, solution);
+        chunk.putLong(offset + TIME, Math.max(1, entry.time().toEpochMilli())); // Last: it makes the record valid
+
+        nextRecord++;
+        dirty = true;
+    }
+
+    /**
+     * Writes the appended entries to disk.
+     */
+    public synchronized void force() {
+        if (chunk != null && dirty) {
+            chunk.force();
+            dirty = false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+
+        if (forcer != null)
+            forcer.shutdownNow();
+        force();
+        if (channel != null)
+            channel.close();
+    }
+
+    //# Reading -----------------------------------
+
+    /**
+     * Returns all the entries of a journal file, oldest first. A missing file is an empty journal.
+     */
+    public static List<AuditEntry> read(Path file) throws IOException {
+        var entries = new ArrayList<AuditEntry>();
+        scan(file, entries::add);
+        return entries;
+    }
+
+    /**
+     * Passes each entry of the journal file to the consumer, oldest first. A missing file is an empty journal.
+     */
+    public static void scan(Path file, Consumer<AuditEntry> consumer) throws IOException {
+        notNull(file, consumer);
+        if (!Files.exists(file))
+            return;
+
+        try (var channel = FileChannel.open(file, READ)) {
+            long records = channel.size() / RECORD_SIZE;
+            if (records == 0)
+                return;
+            checkHeader(channel);
+
+            for (long chunkStart = 0; chunkStart < records; chunkStart += CHUNK_RECORDS) {
+                long count = Math.min(CHUNK_RECORDS, records - chunkStart);
+                var buffer = channel.map(MapMode.READ_ONLY, chunkStart * RECORD_SIZE, count * RECORD_SIZE);
+                for (int slot = chunkStart == 0 ? 1 : 0; slot < count; slot++) {
+                    int offset = slot * RECORD_SIZE;
+                    if (buffer.getLong(offset + TIME) == 0)
+                        return; // End of the journal
+                    consumer.accept(readEntry(buffer, offset));
+                }
+            }
+        }
+    }
+
+    private static AuditEntry readEntry(ByteBuffer buffer, int offset) {
+        var organization = new byte[Byte.toUnsignedInt(buffer.get(offset + ORGANIZATION_LENGTH))];
+        var group = new byte[Byte.toUnsignedInt(buffer.get(offset + GROUP_LENGTH))];
+        var solution = new byte[Byte.toUnsignedInt(buffer.get(offset + SOLUTION_LENGTH))];
+        buffer.get(offset + ORGANIZATION, organization);
+        buffer.get(offset + GROUP, group);
+        buffer.get(offset + SOLUTION, solution);
+
+        return new AuditEntry(
+                Instant.ofEpochMilli(buffer.getLong(offset + TIME)),
+                new String(organization, StandardCharsets.UTF_8),
+                new String(group, StandardCharsets.UTF_8),
+                new String(solution, StandardCharsets.UTF_8),
+                buffer.get(offset + ACTION) == 0 ? AuditEntry.Action.GRANT : AuditEntry.Action.REVOKE,
+                buffer.get(offset + OUTCOME) == 1,
+                Duration.ofMillis(buffer.getInt(offset + LATENCY)));
+    }
+
+    //# Auxiliary methods -----------------------------------
+
+    private void openForAppend() throws IOException {
+        var parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        channel = FileChannel.open(file, CREATE, READ, WRITE);
+        lock();
+        if (channel.size() < RECORD_SIZE) {
+            var header = ByteBuffer.allocate(RECORD_SIZE).putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).flip();
+            channel.write(header, 0);
+            nextRecord = 1;
+        } else {
+            checkHeader(channel);
+            nextRecord = findEnd();
+        }
+
+        forcer = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+        forcer.scheduleWithFixedDelay(this::force, FORCE_INTERVAL.toMillis(), FORCE_INTERVAL.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Held until the channel is closed. Another journal of this process on the same file cannot take it either
+    private void lock() throws IOException {
+        try {
+            if (channel.tryLock() != null)
+                return;
+        } catch (OverlappingFileLockException e) {
+            // Locked by this process
+        }
+        channel.close();
+        channel = null;
+        throw new IOException("The audit journal '" + file + "' is being written by another process.");
+    }
+
+    // Binary search of the first empty record. The records are written in order, so the used ones are a prefix
+    private long findEnd() throws IOException {
+        long low = 1;
+        long high = channel.size() / RECORD_SIZE;
+        var time = ByteBuffer.allocate(Long.BYTES);
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            time.clear();
+            channel.read(time, middle * RECORD_SIZE + TIME);
+            if (time.flip().getLong() == 0)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return low;
+    }
+
+    // Maps the chunk for writing. Mapping beyond the end of the file makes it grow (filled with zeros)
+    private void mapChunk(long index) throws IOException {
+        if (chunk != null && dirty)
+            chunk.force();
+        chunk = channel.map(MapMode.READ_WRITE, index * CHUNK_SIZE, CHUNK_SIZE);
+        chunkIndex = index;
+    }
+
+    private static void checkHeader(FileChannel channel) throws IOException {
+        var header = ByteBuffer.allocate(16);
+        channel.read(header, 0);
+        header.flip();
+        if (header.getLong() != MAGIC || header.getInt() != VERSION || header.getInt() != RECORD_SIZE)
+            throw new IOException("Not an audit journal (or an unsupported version of it)");
+    }
+
+    // UTF-8 bytes of the text, truncated to the maximum without splitting a character
+    private static byte[] encode(String text, int maxBytes) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxBytes)
+            return bytes;
+
+        int length = maxBytes;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80)
+            length--; // bytes[length] continues the previous character, so that one does not fit
+        return Arrays.copyOf(bytes, length);
+    }
+}
@@ -0,0 +1,53 @@
+package es.uniovi.raul.solutions.batch;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+
+import es.uniovi.raul.solutions.course.Group;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+
+/**
+ * A pending change in the access of a group to a solution.
+ *
+ * @param group the group whose access changes
+ * @param solution the name of the solution repository
+ * @param operation whether the access is granted or revoked
+ */
+public record AccessChange(Group group, String solution, Operation operation) {
+
+    public AccessChange {
+        notNull(group, solution, operation);
+    }
+
+    public void apply() throws GithubApiException, IOException, InterruptedException {
+        switch (operation) {
+            case GRANT -> group.grantAccess(solution);
+            case REVOKE -> group.revokeAccess(solution);
+            default -> throw new IllegalStateException("Unknown operation: " + operation);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s '%s' %s '%s'", operation.verb(), solution,
+                operation == Operation.GRANT ? "to" : "from", group.name());
+    }
+
+    /**
+     * Kind of change.
+     */
+    public enum Operation {
+        GRANT("show"), REVOKE("hide");
+
+        private final String verb;
+
+        Operation(String verb) {
+            this.verb = verb;
+        }
+
+        String verb() {
+            return verb;
+        }
+    }
+}
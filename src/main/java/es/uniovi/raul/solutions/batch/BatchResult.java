@@ -0,0 +1,34 @@
+package es.uniovi.raul.solutions.batch;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.util.List;
+
+/**
+ * Outcome of applying a batch of access changes.
+ *
+ * @param applied the changes that were applied successfully
+ * @param failed the changes that could not be applied, with the reason
+ */
+public record BatchResult(List<AccessChange> applied, List<Failure> failed) {
+
+    public BatchResult {
+        notNull(applied, failed);
+
+        applied = List.copyOf(applied);
+        failed = List.copyOf(failed);
+    }
+
+    public boolean isSuccessful() {
+        return failed.isEmpty();
+    }
+
+    /**
+     * A change that could not be applied.
+     *
+     * @param change the change
+     * @param error the cause of the failure
+     */
+    public record Failure(AccessChange change, Throwable error) {
+    }
+}
@@ -0,0 +1,118 @@
+package es.uniovi.raul.solutions.batch;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import es.uniovi.raul.solutions.github.GithubApiImpl;
+
+/**
+ * Applies a list of access changes concurrently.
+ *
+ * The number of changes in flight, and optionally the number of changes started per second, are limited. By
+ * default, only as many as GitHub could take at most are in flight and they are not spaced: the requests to GitHub
+ * already adapt to its rate limits (see {@link GithubApiImpl}), and a fixed rate would keep them below the limit
+ * it reaches. A failed change does not stop the rest of the batch; failures are collected in the result.
+ */
+public final class BatchRunner {
+
+    public static final int DEFAULT_PARALLELISM = GithubApiImpl.MAX_CONCURRENT_REQUESTS;
+
+    private final int maxParallelism;
+    private final long intervalNanos;
+    private final AtomicLong nextStart = new AtomicLong(System.nanoTime());
+
+    /**
+     * Creates a runner with the default parallelism that does not space the changes.
+     */
+    public BatchRunner() {
+        this.maxParallelism = DEFAULT_PARALLELISM;
+        this.intervalNanos = 0;
+    }
+
+    /**
+     * Creates a runner with the given limits.
+     *
+     * @param maxParallelism maximum number of changes being applied at the same time
+     * @param maxRequestsPerSecond maximum number of changes started per second
+     */
+    public BatchRunner(int maxParallelism, int maxRequestsPerSecond) {
+        if (maxParallelism < 1 || maxRequestsPerSecond < 1)
+            throw new IllegalArgumentException("Parallelism and requests per second must be at least 1.");
+
+        this.maxParallelism = maxParallelism;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / maxRequestsPerSecond;
+    }
+
+    /**
+     * Applies all the changes and waits for them to finish.
+     *
+     * @return which changes were applied and which ones failed
+     */
+    public BatchResult run(List<AccessChange> changes) throws InterruptedException {
+        return run(changes, null);
+    }
+
+    /**
+     * Applies all the changes and waits for them to finish, recording in the log each change that is applied.
+     *
+     * @param log where the applied changes are recorded (if null, they are not recorded)
+     * @return which changes were applied and which ones failed
+     */
+    public BatchResult run(List<AccessChange> changes, IntentLog log) throws InterruptedException {
+        notNull(changes, "changes");
+
+        var slots = new Semaphore(maxParallelism);
+        var futures = new ArrayList<Future<?>>(changes.size());
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var change : changes)
+                futures.add(executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        waitForTurn();
+                        change.apply();
+                        if (log != null)
+                            log.completed(change);
+                        return null;
+                    } finally {
+                        slots.release();
+                    }
+                }));
+
+            try {
+                return collectResults(changes, futures);
+            } catch (InterruptedException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        }
+    }
+
+    private static BatchResult collectResults(List<AccessChange> changes, List<Future<?>> futures)
+            throws InterruptedException {
+
+        var applied = new ArrayList<AccessChange>();
+        var failed = new ArrayList<BatchResult.Failure>();
+        for (int i = 0; i < changes.size(); i++) {
+            try {
+                futures.get(i).get();
+                applied.add(changes.get(i));
+            } catch (ExecutionException e) {
+                failed.add(new BatchResult.Failure(changes.get(i), e.getCause()));
+            }
+        }
+        return new BatchResult(applied, failed);
+    }
+
+    // Spaces the start of the requests so no more than the configured requests per second are started
+    private void waitForTurn() throws InterruptedException {
+        if (intervalNanos == 0)
+            return;
+        long now = System.nanoTime();
+        long turn = Math.max(now, nextStart.getAndUpdate(next -> Math.max(next, now) + intervalNanos));
+        TimeUnit.NANOSECONDS.sleep(turn - now);
+    }
+}
@@ -0,0 +1,68 @@
+package es.uniovi.raul.solutions.batch;
+
+import static java.lang.String.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import org.apache.commons.csv.*;
+
+/**
+ * Utility class to load the desired visibility of the solutions from a CSV file.
+ */
+public final class DesiredStateLoader {
+
+    /**
+     * Loads the desired visibility from a CSV file. The expected format is one line per group:
+     * group[, solution, solution...]
+     *
+     * The listed solutions must be visible to the group and any other solution must be hidden. A group without
+     * solutions will have all of them hidden. Groups not included in the file are left as they are.
+     *
+     * @param file the path to the CSV file
+     * @return a mapping from group names to the names of the solutions that must be visible to them
+     */
+    public static Map<String, Set<String>> load(String file) throws IOException, InvalidDesiredState {
+        Map<String, Set<String>> desired = new LinkedHashMap<>();
+
+        try (var reader = Files.newBufferedReader(Paths.get(file));
+                var csvParser = new CSVParser(reader, CSVFormat.Builder.create()
+                        .setIgnoreSurroundingSpaces(true)
+                        .setTrim(true)
+                        .setIgnoreEmptyLines(true)
+                        .setCommentMarker('#')
+                        .build())) {
+
+            for (CSVRecord csvRecord : csvParser) {
+
+                var group = csvRecord.get(0);
+                if (group.isBlank())
+                    throw new InvalidDesiredState(format("Record #%d: the group cannot be blank",
+                            csvRecord.getRecordNumber()));
+
+                if (desired.containsKey(group))
+                    throw new InvalidDesiredState(format("Record #%d: group '%s' appears more than once",
+                            csvRecord.getRecordNumber(), group));
+
+                var solutions = new LinkedHashSet<String>();
+                for (int column = 1; column < csvRecord.size(); column++)
+                    if (!csvRecord.get(column).isBlank())
+                        solutions.add(csvRecord.get(column));
+
+                desired.put(group, solutions);
+            }
+
+            return desired;
+        }
+    }
+
+    /**
+     * Exception thrown when the desired state is not valid (wrong format or unknown groups or solutions).
+     */
+    public static class InvalidDesiredState extends Exception {
+        public InvalidDesiredState(String message) {
+            super(message);
+        }
+    }
+}
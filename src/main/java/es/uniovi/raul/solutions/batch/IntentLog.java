@@ -0,0 +1,183 @@
+package es.uniovi.raul.solutions.batch;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+import static java.nio.file.StandardOpenOption.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+import es.uniovi.raul.solutions.batch.AccessChange.Operation;
+
+/**
+ * Write-ahead log of a batch of access changes, so that an interrupted batch can be resumed without applying
+ * again the changes that were already made.
+ *
+ * Before the batch starts, all its changes are written to the file as intents and forced to disk. Each change
+ * that is applied successfully is then appended as done. The file is a text file with one tab-separated line
+ * per record:
+ *
+ * <pre>
+ * INTENT   GRANT   G1   01-factorial-solution
+ * DONE     GRANT   G1   01-factorial-solution
+ * </pre>
+ *
+ * The done records are written to the operating system as soon as each change finishes, so they are kept if
+ * the process is killed, and forced to disk when the log is closed. If a done record is lost anyway (an
+ * operating system crash), the change is just applied again when resuming, which has no effect in GitHub.
+ *
+ * When the log is closed with no pending changes left, the file is deleted.
+ */
+public final class IntentLog implements AutoCloseable {
+
+    private static final String HEADER = "# solutions intent log v1";
+    private static final String INTENT = "INTENT";
+    private static final String DONE = "DONE";
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Set<Intent> pending; // Guarded by this
+    private final List<Intent> initiallyPending;
+    private IOException writeError; // Guarded by this
+
+    private IntentLog(Path file, FileChannel channel, Collection<Intent> pending) {
+        this.file = file;
+        this.channel = channel;
+        this.pending = new LinkedHashSet<>(pending);
+        this.initiallyPending = List.copyOf(this.pending);
+    }
+
+    /**
+     * Starts the log of a new batch, replacing the log of any previous one. When this method returns, the
+     * intents are on disk.
+     */
+    public static IntentLog start(Path file, List<AccessChange> changes) throws IOException {
+        notNull(file, changes);
+
+        var intents = changes.stream().map(Intent::of).toList();
+        var text = new StringBuilder(HEADER).append('\n');
+        for (var intent : intents)
+            text.append(intent.toLine(INTENT));
+
+        var channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE);
+        try {
+            write(channel, text.toString());
+            channel.force(true);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new IntentLog(file, channel, intents);
+    }
+
+    /**
+     * Opens the log of an interrupted batch to resume it. The changes that were not done are in {@link #pending()}.
+     */
+    public static IntentLog resume(Path file) throws IOException {
+        notNull(file, "file");
+
+        var pending = read(file);
+        return new IntentLog(file, FileChannel.open(file, WRITE, APPEND), pending);
+    }
+
+    /**
+     * Reads the changes of an interrupted batch that were not done, in the order of the batch, without opening
+     * the log for writing (for a dry run, which must leave the batch to be resumed).
+     */
+    public static List<Intent> read(Path file) throws IOException {
+        notNull(file, "file");
+
+        var pending = new LinkedHashSet<Intent>();
+        var lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(HEADER))
+            throw new IOException("'" + file + "' is not an intent log.");
+
+        for (var line : lines.subList(1, lines.size())) {
+            var fields = line.split("\t");
+            if (fields.length != 4)
+                continue; // A line that was being written when the process stopped
+            var intent = new Intent(Operation.valueOf(fields[1]), fields[2], fields[3]);
+            switch (fields[0]) {
+                case INTENT -> pending.add(intent);
+                case DONE -> pending.remove(intent);
+                default -> throw new IOException("Unknown record in '" + file + "': " + line);
+            }
+        }
+        return List.copyOf(pending);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * The changes that were not done when the log was opened, in the order of the batch.
+     */
+    public List<Intent> pending() {
+        return initiallyPending;
+    }
+
+    /**
+     * Records that the change was applied. If the record cannot be written, the error is thrown when the log is
+     * closed, so it does not make the change fail.
+     */
+    public synchronized void completed(AccessChange change) {
+        notNull(change, "change");
+
+        var intent = Intent.of(change);
+        if (!pending.remove(intent))
+            return;
+
+        try {
+            write(channel, intent.toLine(DONE));
+        } catch (IOException e) {
+            if (writeError == null)
+                writeError = e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (!channel.isOpen())
+            return;
+
+        try (channel) {
+            channel.force(true);
+        }
+        if (writeError != null)
+            throw writeError;
+        if (pending.isEmpty())
+            Files.deleteIfExists(file);
+    }
+
+    private static void write(FileChannel channel, String text) throws IOException {
+        var buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * A change as recorded in the log: the group is identified by its name.
+     *
+     * @param operation grant or revoke
+     * @param group the name of the group
+     * @param solution the name of the solution repository
+     */
+    public record Intent(Operation operation, String group, String solution) {
+
+        public Intent {
+            notNull(operation, group, solution);
+        }
+
+        static Intent of(AccessChange change) {
+            return new Intent(change.operation(), change.group().name(), change.solution());
+        }
+
+        private String toLine(String type) {
+            return String.join("\t", type, operation.name(), group, solution) + "\n";
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package es.uniovi.raul.solutions.batch;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+import java.util.*;
+
+import es.uniovi.raul.solutions.batch.AccessChange.Operation;
+import es.uniovi.raul.solutions.batch.DesiredStateLoader.InvalidDesiredState;
+import es.uniovi.raul.solutions.course.*;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+
+/**
+ * Computes the minimal list of changes needed to go from the actual visibility of the solutions to the desired one.
+ */
+public final class VisibilityPlanner {
+
+    /**
+     * Compares the desired visibility with the actual one (loading the involved groups concurrently) and returns
+     * only the grants and revokes that are needed.
+     *
+     * @param course the course with the actual state
+     * @param desired a mapping from group names to the solutions that must be visible to them
+     * @return the changes to apply, ordered by group and solution
+     * @throws InvalidDesiredState if a group or solution of the desired state does not exist in the course
+     */
+    public static List<AccessChange> plan(Course course, Map<String, Set<String>> desired)
+            throws InvalidDesiredState, GithubApiException, IOException, InterruptedException {
+        notNull(course, desired);
+
+        validate(course, desired);
+
+        var involvedGroups = course.groups().stream()
+                .filter(group -> desired.containsKey(group.name()))
+                .toList();
+        Concurrently.forEach(involvedGroups, Concurrently.DEFAULT_PARALLELISM, Group::getAccesibleSolutions);
+
+        var changes = new ArrayList<AccessChange>();
+        for (var group : involvedGroups) {
+            var visible = desired.get(group.name());
+            for (var solution : course.solutionsFor(group).stream().sorted().toList()) {
+                boolean hasAccess = group.hasAccessTo(solution);
+                if (visible.contains(solution) && !hasAccess)
+                    changes.add(new AccessChange(group, solution, Operation.GRANT));
+                else if (!visible.contains(solution) && hasAccess)
+                    changes.add(new AccessChange(group, solution, Operation.REVOKE));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the changes that toggle the visibility of each solution for the given groups, as one selection:
+     * if all the groups can already access the solution, it is hidden from all of them; otherwise, it is shown to
+     * those that cannot access it. The groups are loaded concurrently. A solution that is not in the organization
+     * of a group is left unchanged for it.
+     *
+     * @return the changes to apply, ordered by solution and group
+     */
+    public static List<AccessChange> toggle(Course course, List<Group> groups, List<String> solutions)
+            throws GithubApiException, IOException, InterruptedException {
+        notNull(course, groups, solutions);
+
+        Concurrently.forEach(groups, Concurrently.DEFAULT_PARALLELISM, Group::getAccesibleSolutions);
+
+        var changes = new ArrayList<AccessChange>();
+        for (var solution : solutions) {
+            var withSolution = groups.stream().filter(group -> course.hasSolution(group, solution)).toList();
+            var withoutAccess = new ArrayList<Group>();
+            for (var group : withSolution)
+                if (!group.hasAccessTo(solution))
+                    withoutAccess.add(group);
+
+            if (withoutAccess.isEmpty())
+                withSolution.forEach(group -> changes.add(new AccessChange(group, solution, Operation.REVOKE)));
+            else
+                withoutAccess.forEach(group -> changes.add(new AccessChange(group, solution, Operation.GRANT)));
+        }
+        return changes;
+    }
+
+    private static void validate(Course course, Map<String, Set<String>> desired) throws InvalidDesiredState {
+
+        for (var entry : desired.entrySet()) {
+            var group = course.findGroup(entry.getKey());
+            if (group.isEmpty())
+                throw new InvalidDesiredState("Group '" + entry.getKey() + "' does not exist in the organization.");
+
+            var solutions = new HashSet<>(course.solutionsFor(group.get()));
+            for (var solution : entry.getValue())
+                if (!solutions.contains(solution))
+                    throw new InvalidDesiredState("Solution '" + solution + "' (group '" + entry.getKey()
+                            + "') does not exist in the organization.");
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package es.uniovi.raul.solutions.cli;
 
+import java.util.List;
+
+import es.uniovi.raul.solutions.github.GithubApiImpl;
 import picocli.CommandLine.*;
 
 // CHECKSTYLE:OFF
@@ -10,8 +13,8 @@ public class Arguments {
     @Option(names = "-t", description = "GitHub API access token. If not provided, it will try to read from the GITHUB_TOKEN environment variable or from a '.env' file.")
     public String token;
 
-    @Option(names = "-o", description = "GitHub organization name. If not provided, it will try to read from the GITHUB_ORG environment variable or from a '.env' file.")
-    public String organization;
+    @Option(names = "-o", paramLabel = "<organization>[,<organization>...]", description = "GitHub organization name (or several, separated by commas). If not provided, it will try to read from the GITHUB_ORG environment variable or from a '.env' file.")
+    public List<String> organizations;
 
     @Option(names = "-s", defaultValue = "schedule.csv", description = "The CSV file with the groups schedule")
     public String scheduleFile;
@@ -21,6 +24,46 @@ public class Arguments {
 
     @Option(names = "--dry-run", description = "Preview what would happen without making any changes")
     public boolean dryRun;
+
+    @Option(names = "--matrix", arity = "0..1", fallbackValue = "table", paramLabel = "table|csv", description = "Print which solutions each group has access to (as a table or as CSV) and exit")
+    public MatrixFormat matrix;
+
+    @Option(names = "--sync", paramLabel = "<visibility.csv>", description = "Make the visible solutions of each group match the given CSV file (lines with 'group, solution, solution...')")
+    public String syncFile;
+
+    @Option(names = "--resume", description = "Apply the changes of a --sync that was interrupted or had failures, skipping those that were already made")
+    public boolean resume;
+
+    @Option(names = "--intent-log", paramLabel = "<file>", defaultValue = "solutions-sync.log", description = "File where --sync records its changes as they are made, to be able to --resume it")
+    public String intentLogFile;
+
+    @Option(names = "--serve", paramLabel = "<port>", description = "Keep the course loaded and serve it as a REST API on http://localhost:<port> until stopped with Ctrl+C")
+    public Integer servePort;
+
+    @Option(names = "--session", description = "Keep the course loaded and read commands (grant, revoke, show, refresh, matrix...) until 'quit'")
+    public boolean session;
+
+    @Option(names = "--write-behind", arity = "0..1", fallbackValue = "2", paramLabel = "<seconds>", description = "Hold each grant and revoke for the given seconds before sending it, so a change that is undone meanwhile is not sent. Changes that fail for a network error are sent again later")
+    public Integer writeBehindSeconds;
+
+    @Option(names = "--api-url", defaultValue = GithubApiImpl.DEFAULT_API_URL, description = "Base URL of the GitHub API (for GitHub Enterprise or a local simulator)")
+    public String apiUrl;
+
+    @Option(names = "--timings", description = "Print how long each phase took (to the error output) at the end")
+    public boolean timings;
+
+    @Option(names = "--trace-file", paramLabel = "<trace.json>", description = "Write how long each phase took as a Chrome trace (for chrome://tracing or ui.perfetto.dev)")
+    public String traceFile;
+
+    @Option(names = "--journal", paramLabel = "<file>", defaultValue = "solutions-audit.journal", description = "File where every grant and revoke is recorded")
+    public String journalFile;
+
+    @Option(names = "--history", arity = "0..1", fallbackValue = "", paramLabel = "<filter>", description = "Print the grants and revokes recorded in the journal (only those whose organization, group or solution contains the filter) and exit")
+    public String history;
+
+    public enum MatrixFormat {
+        TABLE, CSV
+    }
 }
 
 class Messages {
@@ -41,6 +84,20 @@ class Messages {
 
 class PomVersionReader implements IVersionProvider {
     public String[] getVersion() throws Exception {
-        return new String[] { Arguments.class.getPackage().getImplementationVersion() };
+        String version = Arguments.class.getPackage().getImplementationVersion();
+        if (version == null)
+            version = readVersionResource(); // Native images have no JAR manifest
+        return new String[] { version };
+    }
+
+    // version.properties is filled in by Maven during the build
+    private static String readVersionResource() throws java.io.IOException {
+        try (var input = Arguments.class.getResourceAsStream("version.properties")) {
+            if (input == null)
+                return null;
+            var properties = new java.util.Properties();
+            properties.load(input);
+            return properties.getProperty("version");
+        }
     }
 }
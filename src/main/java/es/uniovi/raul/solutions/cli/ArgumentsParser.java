@@ -3,7 +3,7 @@ package es.uniovi.raul.solutions.cli;
 import static java.lang.String.*;
 
 import java.io.PrintStream;
-import java.util.Optional;
+import java.util.*;
 import java.util.regex.Pattern;
 
 import io.github.cdimascio.dotenv.Dotenv;
@@ -47,8 +47,15 @@ public class ArgumentsParser {
             }
 
             validateSolutionRegex(arguments, picocli);
+            validateModes(arguments, picocli);
+            if (arguments.writeBehindSeconds != null && arguments.writeBehindSeconds < 0)
+                throw new ParameterException(picocli, "The write-behind seconds cannot be negative.");
+            // The intent log marks each change as done when the call returns, before a held change is sent
+            if (arguments.writeBehindSeconds != null && (arguments.syncFile != null || arguments.resume))
+                throw new ParameterException(picocli, "--write-behind cannot be used with --sync or --resume.");
 
-            ensureRequiredEnvironment(arguments, picocli);
+            if (arguments.history == null) // The history is read from the journal, without connecting to GitHub
+                ensureRequiredEnvironment(arguments, picocli);
 
             return Optional.of(arguments);
 
@@ -68,30 +75,74 @@ public class ArgumentsParser {
         }
     }
 
+    // Main only runs the first of them, so the rest would be silently ignored
+    private static void validateModes(final Arguments arguments, final CommandLine picocli) {
+        var modes = new ArrayList<String>();
+        if (arguments.matrix != null)
+            modes.add("--matrix");
+        if (arguments.servePort != null)
+            modes.add("--serve");
+        if (arguments.session)
+            modes.add("--session");
+        if (arguments.syncFile != null)
+            modes.add("--sync");
+        if (arguments.resume)
+            modes.add("--resume");
+        if (arguments.history != null)
+            modes.add("--history");
+
+        if (modes.size() > 1)
+            throw new ParameterException(picocli, format("%s cannot be used together.", String.join(", ", modes)));
+    }
+
     //#  -----------------------------------
 
     private static void ensureRequiredEnvironment(Arguments arguments, final CommandLine picocli) {
-        arguments.token = ensureArgument(arguments.token, "GITHUB_TOKEN", picocli);
-        arguments.organization = ensureArgument(arguments.organization, "GITHUB_ORG", picocli);
+        var environment = new Environment();
+        arguments.token = ensureArgument(arguments.token, "GITHUB_TOKEN", environment, picocli);
+        if (arguments.organizations == null)
+            arguments.organizations = List.of(ensureArgument(null, "GITHUB_ORG", environment, picocli));
+
+        // Split here and not by picocli, which drops a trailing empty name. An empty name ("a,,b" or "a,") would
+        // only fail later, as an organization not found in GitHub
+        arguments.organizations = arguments.organizations.stream()
+                .flatMap(organizations -> Arrays.stream(organizations.split(",", -1)))
+                .map(String::trim)
+                .distinct()
+                .toList();
+        if (arguments.organizations.contains(""))
+            throw new ParameterException(picocli, "The organization names cannot be empty.");
     }
 
     // Helper methods for environment variables
-    private static String ensureArgument(String argValue, String envKey, final CommandLine picocli) {
+    private static String ensureArgument(String argValue, String envKey, Environment environment,
+            final CommandLine picocli) {
         if (argValue != null)
             return argValue;
 
-        return getEnvironmentVariable(envKey)
+        return environment.get(envKey)
                 .orElseThrow(() -> new ParameterException(picocli,
                         format("Missing required arguments: %s should be provided either via command line or in a '.env' file",
                                 envKey)));
     }
 
-    private static Optional<String> getEnvironmentVariable(String key) {
-        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
-        String value = dotenv.get(key);
-        if (value == null)
-            value = System.getenv(key);
-        return Optional.ofNullable(value);
+    /**
+     * Variables of the '.env' file and the system environment. The file is only read if a variable is
+     * needed, and only once.
+     */
+    private static final class Environment {
+
+        private Dotenv dotenv;
+
+        Optional<String> get(String key) {
+            if (dotenv == null)
+                dotenv = Dotenv.configure().ignoreIfMissing().load();
+
+            String value = dotenv.get(key);
+            if (value == null)
+                value = System.getenv(key);
+            return Optional.ofNullable(value);
+        }
     }
 
 }
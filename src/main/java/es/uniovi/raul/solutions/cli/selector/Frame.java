@@ -0,0 +1,101 @@
+package es.uniovi.raul.solutions.cli.selector;
+
+import static org.jline.utils.InfoCmp.Capability.*;
+
+import org.jline.terminal.Terminal;
+import org.jline.utils.Curses;
+import org.jline.utils.InfoCmp.Capability;
+
+/**
+ * Collects the text and cursor movements of one redraw of the terminal, to write them all at once.
+ *
+ * Nothing is sent to the terminal until {@link #flush()}, so a redraw costs a single write (and a single round trip
+ * over SSH) instead of one per line and cursor movement. Movements of several lines use the parameterized
+ * capabilities of the terminal when it has them.
+ */
+class Frame {
+
+    private static final String HIDE_CURSOR = "\033[?25l";
+    private static final String SHOW_CURSOR = "\033[?25h";
+
+    private final Terminal terminal;
+    private final StringBuilder buffer = new StringBuilder();
+
+    Frame(Terminal terminal) {
+        if (terminal == null)
+            throw new IllegalArgumentException("Terminal cannot be null.");
+
+        this.terminal = terminal;
+    }
+
+    Frame print(String text) {
+        buffer.append(text);
+        return this;
+    }
+
+    // Clears the rest of the line from the cursor position
+    Frame clearRestOfLine() {
+        return put(clr_eol);
+    }
+
+    Frame newLine() {
+        buffer.append(System.lineSeparator());
+        return this;
+    }
+
+    // Moves the cursor to the first column of the current line
+    Frame goToFirstColumn() {
+        return put(carriage_return);
+    }
+
+    Frame moveUp() {
+        return put(cursor_up);
+    }
+
+    Frame moveUp(int linesCount) {
+        if (linesCount == 1)
+            return moveUp();
+        if (linesCount > 1 && !tryPut(parm_up_cursor, linesCount))
+            for (int counter = 0; counter < linesCount; counter++)
+                moveUp();
+        return this;
+    }
+
+    Frame moveDown() {
+        return put(cursor_down);
+    }
+
+    Frame hideCursor() {
+        buffer.append(HIDE_CURSOR);
+        return this;
+    }
+
+    Frame showCursor() {
+        buffer.append(SHOW_CURSOR);
+        return this;
+    }
+
+    /**
+     * Writes everything collected to the terminal and starts an empty frame.
+     */
+    void flush() {
+        terminal.writer().append(buffer);
+        terminal.writer().flush();
+        buffer.setLength(0);
+    }
+
+    private Frame put(Capability capability) {
+        tryPut(capability);
+        return this;
+    }
+
+    // Returns false if the terminal does not have the capability
+    private boolean tryPut(Capability capability, Object... params) {
+        String sequence = terminal.getStringCapability(capability);
+        if (sequence == null)
+            return false;
+
+        Curses.tputs(buffer, sequence, params);
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package es.uniovi.raul.solutions.cli.selector;
+
+import java.util.*;
+
+/**
+ * Options for {@link OptionsSelector} that can change while they are being shown. For example, options that are
+ * shown right away as "[loading]" and updated from another thread when their data arrives.
+ *
+ * The selector redraws the changed options, keeping the filter and the selection of the user. Once
+ * {@link #complete()} is called, no more changes are expected.
+ *
+ * All the methods can be used from several threads.
+ */
+public final class LiveOptions {
+
+    private final List<String> options; // Guarded by this
+    private long version; // Guarded by this
+    private boolean complete; // Guarded by this
+
+    public LiveOptions(List<String> initialOptions) {
+        if (initialOptions == null || initialOptions.isEmpty())
+            throw new IllegalArgumentException("Options list cannot be null or empty.");
+        if (initialOptions.stream().anyMatch(Objects::isNull))
+            throw new IllegalArgumentException("Options list cannot contain null values.");
+
+        this.options = new ArrayList<>(initialOptions);
+    }
+
+    /**
+     * Options that will not change.
+     */
+    public static LiveOptions of(List<String> options) {
+        var fixed = new LiveOptions(options);
+        fixed.complete();
+        return fixed;
+    }
+
+    /**
+     * Replaces the text of an option. The number of options cannot change.
+     */
+    public synchronized void set(int index, String option) {
+        if (option == null)
+            throw new IllegalArgumentException("Option cannot be null.");
+        if (complete)
+            throw new IllegalStateException("The options are complete and cannot change.");
+
+        if (!options.get(index).equals(option)) {
+            options.set(index, option);
+            version++;
+        }
+    }
+
+    /**
+     * Indicates that the options will not change anymore.
+     */
+    public synchronized void complete() {
+        complete = true;
+    }
+
+    public synchronized int size() {
+        return options.size();
+    }
+
+    synchronized List<String> snapshot() {
+        return List.copyOf(options);
+    }
+
+    // Incremented on every change, to detect that the options have to be redrawn
+    synchronized long version() {
+        return version;
+    }
+
+    synchronized boolean isComplete() {
+        return complete;
+    }
+}
@@ -3,27 +3,35 @@ package es.uniovi.raul.solutions.cli.selector;
 import java.text.Normalizer;
 import java.util.*;
 
-import org.jline.terminal.Terminal;
-
 /**
  * Manages the display and interaction with a list of options in a terminal.
  * Allows filtering, selecting, and drawing options.
  *
- * Changing a property does not automatically update the display; call draw() to refresh.
+ * Changing a property does not automatically update the display; call draw() to refresh. Drawing only adds to the
+ * frame: it is shown when the frame is flushed.
  *
  * Cursor-related methods expect the cursor at the line for the first option. At exit, the cursor will be left at the same line.
+ *
+ * With multiple selection, each option has a mark that can be toggled, and the selected option is only where the
+ * cursor is.
  */
 class OptionsArea {
-    private final Terminal terminal;
+    private final Frame frame;
     private final List<String> options;
+    private final boolean multipleSelection;
+    private final SortedSet<Integer> marked = new TreeSet<>();
 
     private int selectedIndex = 0;
     private String filter = "";
     private int linesPrintedLastTime = 0;
 
-    OptionsArea(Terminal terminal, List<String> options) {
-        if (terminal == null)
-            throw new IllegalArgumentException("Terminal cannot be null.");
+    OptionsArea(Frame frame, List<String> options) {
+        this(frame, options, false);
+    }
+
+    OptionsArea(Frame frame, List<String> options, boolean multipleSelection) {
+        if (frame == null)
+            throw new IllegalArgumentException("Frame cannot be null.");
 
         if (options == null || options.isEmpty())
             throw new IllegalArgumentException("Options cannot be null or empty.");
@@ -31,8 +39,22 @@ class OptionsArea {
         if (options.stream().anyMatch(Objects::isNull))
             throw new IllegalArgumentException("Options cannot contain null values.");
 
-        this.terminal = terminal;
+        this.frame = frame;
         this.options = new ArrayList<>(options);
+        this.multipleSelection = multipleSelection;
+    }
+
+    /**
+     * Replaces the text of the options (but not their number), keeping the filter and, if it still matches the
+     * filter, the selected option.
+     */
+    void setOptions(List<String> newOptions) {
+        if (newOptions == null || newOptions.size() != options.size())
+            throw new IllegalArgumentException("The number of options cannot change.");
+
+        Collections.copy(options, newOptions);
+        if (!matchesFilter(options.get(selectedIndex)))
+            selectedIndex = getFirstFilteredIndex();
     }
 
     void setFilter(String newFilter) {
@@ -67,7 +89,7 @@ class OptionsArea {
 
     // Expects the cursor to be at line for the first option and leaves it there
     void draw() {
-        Cursor.goToFirstColumn(terminal);
+        frame.goToFirstColumn();
 
         int linesJustPrinted = hasFilteredOptions()
                 ? printFilteredOptions()
@@ -77,7 +99,7 @@ class OptionsArea {
 
         // Move cursor up to the original line
         int totalLines = linesJustPrinted + Math.max(0, linesPrintedLastTime - linesJustPrinted);
-        Cursor.moveUp(terminal, totalLines);
+        frame.moveUp(totalLines);
 
         linesPrintedLastTime = linesJustPrinted;
     }
@@ -89,6 +111,8 @@ class OptionsArea {
             if (matchesFilter(option)) {
                 String display = highlightMatchingText(option, filter);
                 String prefix = (i == selectedIndex ? "> " : "  ");
+                if (multipleSelection)
+                    prefix += marked.contains(i) ? "[x] " : "[ ] ";
                 printFullLine(prefix + display);
                 linesJustPrinted++;
             }
@@ -105,15 +129,14 @@ class OptionsArea {
     private void clearExcessLines(int linesJustPrinted, int linesPrintedLastTime) {
         if (linesJustPrinted < linesPrintedLastTime)
             for (int i = 0; i < linesPrintedLastTime - linesJustPrinted; i++) {
-                Cursor.clearRestOfLine(terminal);
-                Cursor.printNewLine(terminal);
+                frame.clearRestOfLine().newLine();
             }
     }
 
     // Expects the cursor to be at the line for the first option and leaves it there.
     void clearAllOptions() {
         clearExcessLines(0, linesPrintedLastTime);
-        Cursor.moveUp(terminal, linesPrintedLastTime);
+        frame.moveUp(linesPrintedLastTime);
     }
 
     void increaseSelectedIndex() {
@@ -143,6 +166,47 @@ class OptionsArea {
         return options.get(selectedIndex);
     }
 
+    boolean isMultipleSelection() {
+        return multipleSelection;
+    }
+
+    void toggleMarkOfSelected() {
+        if (!hasFilteredOptions())
+            return;
+        if (!marked.remove(selectedIndex))
+            marked.add(selectedIndex);
+    }
+
+    // Marks all the options that match the filter or, if all of them are already marked, unmarks them
+    void toggleMarkOfFiltered() {
+        var filtered = new ArrayList<Integer>();
+        for (int i = 0; i < options.size(); i++)
+            if (matchesFilter(options.get(i)))
+                filtered.add(i);
+
+        if (marked.containsAll(filtered))
+            marked.removeAll(filtered);
+        else
+            marked.addAll(filtered);
+    }
+
+    /**
+     * The indexes of the marked options or, if none is marked, the index of the selected one.
+     */
+    SortedSet<Integer> getMarkedIndexes() {
+        if (marked.isEmpty())
+            return new TreeSet<>(Set.of(selectedIndex));
+        return new TreeSet<>(marked);
+    }
+
+    List<String> getMarkedOptions() {
+        return getMarkedIndexes().stream().map(options::get).toList();
+    }
+
+    boolean hasMarkedOptions() {
+        return !marked.isEmpty();
+    }
+
     boolean hasFilteredOptions() {
         return options.stream().anyMatch(this::matchesFilter);
     }
@@ -196,8 +260,6 @@ class OptionsArea {
 
     // In addition to printing the message, it clears the rest of the line and moves to the next line.
     private void printFullLine(String message) {
-        terminal.writer().print(message);
-        Cursor.clearRestOfLine(terminal);
-        Cursor.printNewLine(terminal);
+        frame.print(message).clearRestOfLine().newLine();
     }
 }
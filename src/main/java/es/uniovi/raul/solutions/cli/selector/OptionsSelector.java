@@ -6,6 +6,9 @@ import java.io.IOException;
 import java.util.*;
 
 import org.jline.terminal.*;
+import org.jline.utils.NonBlockingReader;
+
+import es.uniovi.raul.solutions.monitoring.*;
 
 /**
  * Utility class for displaying and selecting options in the terminal with filtering and navigation support.
@@ -15,14 +18,22 @@ import org.jline.terminal.*;
  */
 public class OptionsSelector {
     private static final String PROMPT = "(type to filter or use arrows ↑/↓): ";
+    private static final String MULTIPLE_PROMPT = "(type to filter, arrows ↑/↓, space to mark, Ctrl+A to mark all): ";
 
     private static final int KEY_ENTER = 10;
     private static final int KEY_RETURN = 13;
     private static final int KEY_ESCAPE = 27;
     private static final int KEY_BACKSPACE = 8;
+    private static final int KEY_SPACE = ' ';
+    private static final int KEY_CTRL_A = 1;
     private static final int ARROW_UP = 'A';
     private static final int ARROW_DOWN = 'B';
 
+    private static final int NO_KEY = -1;
+    private static final int OPTIONS_CHANGED = -3; // Not a key nor any NonBlockingReader result
+    private static final long PENDING_INPUT_WAIT_MILLIS = 1;
+    private static final long LIVE_OPTIONS_CHECK_MILLIS = 50;
+
     /**
      * Displays a list of options in the terminal, allowing the user to filter and select one.
      * <p>
@@ -34,26 +45,69 @@ public class OptionsSelector {
      * @throws IOException if an I/O error occurs with the terminal
      */
     public static int showOptions(List<String> options) throws IOException {
-        if (options == null || options.isEmpty())
-            throw new IllegalArgumentException("Options list cannot be null or empty.");
-        if (options.stream().anyMatch(Objects::isNull))
-            throw new IllegalArgumentException("Options list cannot contain null values.");
+        return showOptions(LiveOptions.of(options));
+    }
 
-        try (Terminal terminal = TerminalBuilder.builder()
-                .system(true)
-                .streams(System.in, System.out)
-                .build()) {
+    /**
+     * Displays options that may change while they are shown, allowing the user to filter and select one. The
+     * changes are drawn as they happen, keeping the filter and the selected option.
+     *
+     * @param options the options to display and select from
+     * @return the index of the selected option
+     * @throws IOException if an I/O error occurs with the terminal
+     */
+    public static int showOptions(LiveOptions options) throws IOException {
+        return select(options, false).getSelectedIndex();
+    }
 
-            OptionsArea optionsArea = new OptionsArea(terminal, options);
+    /**
+     * Displays a list of options in the terminal, allowing the user to filter them and select several. Space
+     * marks or unmarks the option under the cursor and Ctrl+A marks (or unmarks) all the options that match the
+     * filter.
+     *
+     * @param options the list of options to display and select from
+     * @return the indexes of the marked options, in ascending order (if none was marked, the index of the option
+     *         under the cursor when Enter was pressed)
+     * @throws IOException if an I/O error occurs with the terminal
+     */
+    public static SortedSet<Integer> showMultipleOptions(List<String> options) throws IOException {
+        return showMultipleOptions(LiveOptions.of(options));
+    }
+
+    /**
+     * Displays options that may change while they are shown, allowing the user to filter them and select several.
+     *
+     * @param options the options to display and select from
+     * @return the indexes of the marked options, in ascending order
+     * @throws IOException if an I/O error occurs with the terminal
+     * @see #showMultipleOptions(List)
+     */
+    public static SortedSet<Integer> showMultipleOptions(LiveOptions options) throws IOException {
+        return Collections.unmodifiableSortedSet(select(options, true).getMarkedIndexes());
+    }
+
+    private static OptionsArea select(LiveOptions options, boolean multipleSelection) throws IOException {
+        if (options == null)
+            throw new IllegalArgumentException("Options cannot be null.");
+
+        try (var firstRender = Tracer.span("selectorFirstRender");
+                Terminal terminal = TerminalBuilder.builder()
+                        .system(true)
+                        .streams(System.in, System.out)
+                        .build()) {
+
+            var frame = new Frame(terminal);
+            OptionsArea optionsArea = new OptionsArea(frame, options.snapshot(), multipleSelection);
             terminal.enterRawMode();
             terminal.writer().flush();
 
-            handleKeys(terminal, optionsArea);
+            handleKeys(terminal, frame, options, optionsArea, firstRender);
 
             // Final draw to show selection
-            finalDraw(terminal, optionsArea);
+            finalDraw(frame, optionsArea);
+            frame.flush();
 
-            return optionsArea.getSelectedIndex();
+            return optionsArea;
 
         } catch (IOException e) {
             System.err.println("Error with JLine terminal: " + e.getMessage());
@@ -61,61 +115,108 @@ public class OptionsSelector {
         }
     }
 
-    private static void handleKeys(Terminal terminal, OptionsArea optionsArea) throws IOException {
+    // All the keys that are already available (a pasted filter, keys typed over a slow connection...) are handled
+    // before drawing again, so there is a single redraw for all of them
+    private static void handleKeys(Terminal terminal, Frame frame, LiveOptions options, OptionsArea optionsArea,
+            Span firstRender) throws IOException {
 
+        var reader = terminal.reader();
         while (true) {
+            final long drawnVersion = options.version();
+            optionsArea.setOptions(options.snapshot());
+
             // Use draw to print prompt and options, and leave cursor at end of filter
-            draw(terminal, optionsArea);
+            draw(frame, optionsArea);
+            frame.flush();
+            firstRender.close(); // Only the first time counts
+
+            int ch = waitForKey(reader, options, drawnVersion);
+            if (ch == OPTIONS_CHANGED)
+                continue;
+            do {
+                if (handleKey(reader, optionsArea, ch))
+                    return;
+                ch = reader.peek(PENDING_INPUT_WAIT_MILLIS) >= 0 ? reader.read() : NO_KEY;
+            } while (ch != NO_KEY);
+        }
+    }
 
-            int ch = terminal.reader().read();
+    // Returns the next key or, if the options change before a key is pressed, OPTIONS_CHANGED
+    private static int waitForKey(NonBlockingReader reader, LiveOptions options, long drawnVersion)
+            throws IOException {
 
-            if (ch == KEY_ENTER || ch == KEY_RETURN) {
-                if (optionsArea.hasFilteredOptions())
-                    return;
+        while (true) {
+            if (options.version() != drawnVersion)
+                return OPTIONS_CHANGED;
+            if (options.isComplete())
+                return reader.read();
+
+            int ch = reader.read(LIVE_OPTIONS_CHECK_MILLIS);
+            if (ch != NonBlockingReader.READ_EXPIRED)
+                return ch;
+        }
+    }
 
-            } else if (ch == KEY_ESCAPE) {
-                terminal.reader().read(); // The second read is required to consume an unused character
-                int arrow = terminal.reader().read(); // The third read is for the arrow key
-                if (arrow == ARROW_UP)
-                    optionsArea.decreaseSelectedIndex();
-                else if (arrow == ARROW_DOWN)
-                    optionsArea.increaseSelectedIndex();
+    // Returns true if the option has been selected
+    private static boolean handleKey(NonBlockingReader reader, OptionsArea optionsArea, int ch) throws IOException {
 
-            } else if (ch == KEY_BACKSPACE)
-                optionsArea.removeLastCharFromFilter();
+        if (ch == KEY_ENTER || ch == KEY_RETURN) {
+            if (optionsArea.hasFilteredOptions() || optionsArea.hasMarkedOptions())
+                return true;
 
-            else if (Character.isLetterOrDigit(ch) || Character.isWhitespace(ch) || ch >= 128)
-                optionsArea.addToFilter((char) ch);
+        } else if (ch == KEY_SPACE && optionsArea.isMultipleSelection()) {
+            optionsArea.toggleMarkOfSelected();
 
-        }
+        } else if (ch == KEY_CTRL_A && optionsArea.isMultipleSelection()) {
+            optionsArea.toggleMarkOfFiltered();
+
+        } else if (ch == KEY_ESCAPE) {
+            reader.read(); // The second read is required to consume an unused character
+            int arrow = reader.read(); // The third read is for the arrow key
+            if (arrow == ARROW_UP)
+                optionsArea.decreaseSelectedIndex();
+            else if (arrow == ARROW_DOWN)
+                optionsArea.increaseSelectedIndex();
+
+        } else if (ch == KEY_BACKSPACE)
+            optionsArea.removeLastCharFromFilter();
+
+        else if (Character.isLetterOrDigit(ch) || Character.isWhitespace(ch) || ch >= 128)
+            optionsArea.addToFilter((char) ch);
+
+        return false;
     }
 
     // Expects the cursor to be at the prompt line and leaves it there
-    private static void draw(Terminal terminal, OptionsArea optionsArea) {
+    private static void draw(Frame frame, OptionsArea optionsArea) {
 
-        Cursor.hide(terminal); // Hide the cursor to avoid flickering
+        frame.hideCursor(); // Hide the cursor to avoid flickering
 
         // Estamos en la fila del prompt, así que hay que bajar para ponerse en la línea de la primera opción
-        Cursor.goDown(terminal);
+        frame.moveDown();
         optionsArea.draw(); // Al salir, el cursor seguirá en la línea de la primera opción
 
-        Cursor.moveUp(terminal); // Volvemos a la línea del prompt
-        terminal.writer().print(PROMPT + addColor(optionsArea.getFilter(), Colours.COLOR_HIGHLIGHT));
-        Cursor.clearRestOfLine(terminal);
+        frame.moveUp(); // Volvemos a la línea del prompt
+        var prompt = optionsArea.isMultipleSelection() ? MULTIPLE_PROMPT : PROMPT;
+        frame.print(prompt + addColor(optionsArea.getFilter(), Colours.COLOR_HIGHLIGHT));
+        frame.clearRestOfLine();
 
-        Cursor.show(terminal);
+        frame.showCursor();
     }
 
     // Borra el prompt y las opciones, dejando sólo impresa la opción seleccionada
-    private static void finalDraw(Terminal terminal, OptionsArea optionsArea) {
+    private static void finalDraw(Frame frame, OptionsArea optionsArea) {
 
         // Overwrite the prompt line with the selected option
-        Cursor.goToFirstColumn(terminal); // Move cursor to the start of the prompt line
-        terminal.writer().print("> " + addColor(optionsArea.getSelectedOption(), Colours.COLOR_HIGHLIGHT));
-        Cursor.clearRestOfLine(terminal); // Delete the prompt line
+        frame.goToFirstColumn(); // Move cursor to the start of the prompt line
+        var selection = optionsArea.isMultipleSelection()
+                ? String.join(", ", optionsArea.getMarkedOptions())
+                : optionsArea.getSelectedOption();
+        frame.print("> " + addColor(selection, Colours.COLOR_HIGHLIGHT));
+        frame.clearRestOfLine(); // Delete the prompt line
 
         // Delete options area
-        Cursor.printNewLine(terminal); // Go to the first option line
+        frame.newLine(); // Go to the first option line
         optionsArea.clearAllOptions();
 
     }
@@ -0,0 +1,116 @@
+package es.uniovi.raul.solutions.course;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.apache.commons.csv.*;
+
+/**
+ * Immutable snapshot of which solutions each group of a course has access to.
+ *
+ * The cells are stored in a single bitset, row by row (one row per group), so even a course with hundreds
+ * of groups and solutions takes a few kilobytes.
+ */
+public final class AccessMatrix {
+
+    private static final String ACCESSIBLE_MARK = "X";
+    private static final String HIDDEN_MARK = ".";
+
+    private final List<String> groups;
+    private final List<String> solutions;
+    private final BitSet cells;
+
+    AccessMatrix(List<String> groups, List<String> solutions, BitSet cells) {
+        notNull(groups, solutions, cells);
+
+        this.groups = List.copyOf(groups);
+        this.solutions = List.copyOf(solutions);
+        this.cells = (BitSet) cells.clone();
+    }
+
+    /**
+     * Names of the groups, in the same order as in the course.
+     */
+    public List<String> groups() {
+        return groups;
+    }
+
+    /**
+     * Names of the solutions, sorted by name.
+     */
+    public List<String> solutions() {
+        return solutions;
+    }
+
+    public boolean hasAccess(int groupIndex, int solutionIndex) {
+        Objects.checkIndex(groupIndex, groups.size());
+        Objects.checkIndex(solutionIndex, solutions.size());
+
+        return cells.get(cellIndex(groupIndex, solutionIndex, solutions.size()));
+    }
+
+    /**
+     * Returns the matrix as CSV, with one row per solution and one column per group. Each cell is either
+     * "accessible" or "hidden".
+     */
+    public String toCsv() {
+        var out = new StringWriter();
+        try (var printer = new CSVPrinter(out, CSVFormat.DEFAULT)) {
+            var header = new ArrayList<String>();
+            header.add("solution");
+            header.addAll(groups);
+            printer.printRecord(header);
+
+            for (int solution = 0; solution < solutions.size(); solution++) {
+                var row = new ArrayList<String>();
+                row.add(solutions.get(solution));
+                for (int group = 0; group < groups.size(); group++)
+                    row.add(hasAccess(group, solution) ? "accessible" : "hidden");
+                printer.printRecord(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen with a StringWriter
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the matrix as a text table for the console, with one row per solution and one column per group.
+     * Accessible solutions are marked with 'X'.
+     */
+    public String toTable() {
+        int solutionsWidth = solutions.stream().mapToInt(String::length).max().orElse(0);
+        solutionsWidth = Math.max(solutionsWidth, "solution".length());
+
+        var table = new StringBuilder();
+        table.append(pad("solution", solutionsWidth));
+        for (var group : groups)
+            table.append("  ").append(group);
+        table.append(System.lineSeparator());
+
+        for (int solution = 0; solution < solutions.size(); solution++) {
+            table.append(pad(solutions.get(solution), solutionsWidth));
+            for (int group = 0; group < groups.size(); group++) {
+                var mark = hasAccess(group, solution) ? ACCESSIBLE_MARK : HIDDEN_MARK;
+                table.append("  ").append(center(mark, groups.get(group).length()));
+            }
+            table.append(System.lineSeparator());
+        }
+        return table.toString();
+    }
+
+    static int cellIndex(int groupIndex, int solutionIndex, int solutionsCount) {
+        return groupIndex * solutionsCount + solutionIndex;
+    }
+
+    private static String pad(String text, int width) {
+        return text + " ".repeat(width - text.length());
+    }
+
+    private static String center(String text, int width) {
+        int left = Math.max(0, (width - text.length()) / 2);
+        return pad(" ".repeat(left) + text, Math.max(width, left + text.length()));
+    }
+}
@@ -0,0 +1,82 @@
+package es.uniovi.raul.solutions.course;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.github.GithubApiImpl;
+
+/**
+ * Utility class to run GitHub related tasks concurrently (one virtual thread per task) with a limited parallelism,
+ * so GitHub is not flooded with requests.
+ */
+public final class Concurrently {
+
+    /**
+     * Default maximum number of tasks running at the same time: as many as requests GitHub could take at most, so
+     * the tasks are not what limits them (see {@link GithubApiImpl#MAX_CONCURRENT_REQUESTS}).
+     */
+    public static final int DEFAULT_PARALLELISM = GithubApiImpl.MAX_CONCURRENT_REQUESTS;
+
+    /**
+     * Applies the action to all the items concurrently and waits for all of them to finish.
+     * If any of them fails, the exception of the first failed item (in list order) is rethrown.
+     */
+    public static <T> void forEach(Collection<T> items, int maxParallelism, Action<T> action)
+            throws GithubApiException, IOException, InterruptedException {
+        notNull(items, action);
+        if (maxParallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+
+        var slots = new Semaphore(maxParallelism);
+        var futures = new ArrayList<Future<Void>>(items.size());
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (T item : items)
+                futures.add(executor.submit(() -> {
+                    slots.acquire();
+                    try {
+                        action.apply(item);
+                        return null;
+                    } finally {
+                        slots.release();
+                    }
+                }));
+
+            for (var future : futures)
+                await(future);
+        }
+    }
+
+    /**
+     * Waits for the future and returns its value. If it failed, its original exception is rethrown.
+     */
+    public static <T> T await(Future<T> future)
+            throws GithubApiException, IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case GithubApiException cause -> throw cause;
+                case IOException cause -> throw cause;
+                case InterruptedException cause -> throw cause;
+                case RuntimeException cause -> throw cause;
+                case Error cause -> throw cause;
+                default -> throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * An action on an item that can fail in the same ways as a GitHub call.
+     *
+     * @param <T> the type of the items
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+        void apply(T item) throws GithubApiException, IOException, InterruptedException;
+    }
+}
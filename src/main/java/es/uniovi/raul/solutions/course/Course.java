@@ -2,23 +2,225 @@ package es.uniovi.raul.solutions.course;
 
 import static es.uniovi.raul.solutions.debug.Debug.*;
 
+import java.io.IOException;
 import java.util.*;
 
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+
 /**
  * A Course is a layer of abstraction over a GitHub organization. Instead of teams and repositories,
  * a course shows groups and solution repositories. That is, filters teams that correspond to groups and repositories that correspond to solutions.
  *
- * A Course represents an immutable snapshot of groups and solutions.
+ * A Course represents an immutable snapshot of groups and solutions, so it can be shared between threads
+ * (the groups are thread-safe too).
+ *
+ * Solutions are stored by their {@link RepositoryNames} ID. Their names are only materialized when requested
+ * with {@link #solutions()}.
  *
- * @param groups the groups in the course (teams that correspond to groups)
- * @param solutions the names of all the repositories that correspond to solutions of assignments in the course
+ * A course can also combine the courses of several organizations (see {@link #combine(Map)}). Then each group
+ * can only access the solutions of its own organization, which are returned by {@link #solutionsFor(Group)}.
+ *
+ * Like a record, two courses are equal if they have the same groups and solutions.
  */
-public record Course(List<Group> groups, List<String> solutions) {
+public final class Course {
+
+    private final List<Group> groups;
+    private final int[] solutionIds;
+    private final Map<String, int[]> organizationSolutionIds; // Empty unless combined from several organizations
+    private final ReleaseOrder releaseOrder;
+    private final Map<String, ReleaseOrder> organizationReleaseOrders;
 
-    public Course {
+    /**
+     * Creates a course with the given groups and solutions.
+     *
+     * @param groups the groups in the course (teams that correspond to groups)
+     * @param solutions the names of all the repositories that correspond to solutions of assignments in the course
+     */
+    public Course(List<Group> groups, List<String> solutions) {
         notNull(groups, solutions);
 
-        groups = List.copyOf(groups);
-        solutions = List.copyOf(solutions);
+        this.groups = List.copyOf(groups);
+        this.solutionIds = solutions.stream()
+                .mapToInt(RepositoryNames::intern)
+                .toArray();
+        this.organizationSolutionIds = Map.of();
+        this.releaseOrder = new ReleaseOrder(solutionIds);
+        this.organizationReleaseOrders = Map.of();
+    }
+
+    private Course(List<Group> groups, int[] solutionIds, Map<String, Course> coursesByOrganization) {
+        this.groups = List.copyOf(groups);
+        this.solutionIds = solutionIds;
+        this.releaseOrder = new ReleaseOrder(solutionIds);
+
+        var ids = new HashMap<String, int[]>();
+        var orders = new HashMap<String, ReleaseOrder>();
+        coursesByOrganization.forEach((organization, course) -> {
+            ids.put(organization, course.solutionIds);
+            orders.put(organization, course.releaseOrder);
+        });
+        this.organizationSolutionIds = Map.copyOf(ids);
+        this.organizationReleaseOrders = Map.copyOf(orders);
+    }
+
+    /**
+     * Combines the courses of several organizations in a single one, with the groups of all of them (in the
+     * given order) and all their solutions.
+     *
+     * @param coursesByOrganization the course of each organization
+     */
+    public static Course combine(Map<String, Course> coursesByOrganization) {
+        notNull(coursesByOrganization, "coursesByOrganization");
+
+        var groups = new ArrayList<Group>();
+        var allIds = new LinkedHashSet<Integer>();
+        for (var course : coursesByOrganization.values()) {
+            groups.addAll(course.groups);
+            Arrays.stream(course.solutionIds).forEach(allIds::add);
+        }
+
+        return new Course(groups, allIds.stream().mapToInt(Integer::intValue).toArray(), coursesByOrganization);
+    }
+
+    /**
+     * The groups in the course (teams that correspond to groups).
+     */
+    public List<Group> groups() {
+        return groups;
+    }
+
+    /**
+     * The names of all the repositories that correspond to solutions of assignments in the course.
+     */
+    public List<String> solutions() {
+        var names = new ArrayList<String>(solutionIds.length);
+        for (int id : solutionIds)
+            names.add(RepositoryNames.name(id));
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * The {@link RepositoryNames} IDs of the solutions, in the same order as {@link #solutions()}.
+     */
+    public int[] solutionIds() {
+        return solutionIds.clone();
+    }
+
+    /**
+     * The names of the solutions that the group can access: those of its organization.
+     */
+    public List<String> solutionsFor(Group group) {
+        notNull(group, "group");
+
+        var names = new ArrayList<String>();
+        for (int id : solutionIdsFor(group))
+            names.add(RepositoryNames.name(id));
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * The order in which the solutions that the group can access are released (see {@link ReleaseOrder}).
+     */
+    public ReleaseOrder releaseOrderFor(Group group) {
+        notNull(group, "group");
+
+        return organizationReleaseOrders.getOrDefault(group.organization(), releaseOrder);
+    }
+
+    /**
+     * The first solution, in release order, that the group cannot access yet.
+     */
+    public Optional<String> nextHiddenSolution(Group group)
+            throws GithubApiException, IOException, InterruptedException {
+
+        return group.nextHiddenSolution(releaseOrderFor(group));
+    }
+
+    public boolean hasSolutions() {
+        return solutionIds.length > 0;
+    }
+
+    public boolean hasSolution(String solution) {
+        notNull(solution, "solution");
+
+        int id = RepositoryNames.find(solution);
+        return Arrays.stream(solutionIds).anyMatch(solutionId -> solutionId == id);
+    }
+
+    /**
+     * Whether the solution exists in the organization of the group.
+     */
+    public boolean hasSolution(Group group, String solution) {
+        notNull(group, solution);
+
+        int id = RepositoryNames.find(solution);
+        return Arrays.stream(solutionIdsFor(group)).anyMatch(solutionId -> solutionId == id);
+    }
+
+    /**
+     * Returns the first group with the given name.
+     */
+    public Optional<Group> findGroup(String name) {
+        notNull(name, "name");
+
+        return groups.stream().filter(group -> group.name().equals(name)).findFirst();
+    }
+
+    /**
+     * Computes which solutions each group has access to. The access of the groups that are not loaded yet is
+     * fetched concurrently. Solutions are sorted by name.
+     */
+    public AccessMatrix accessMatrix()
+            throws GithubApiException, IOException, InterruptedException {
+
+        Concurrently.forEach(groups, Concurrently.DEFAULT_PARALLELISM, Group::getAccesibleSolutions);
+
+        int[] sortedIds = Arrays.stream(solutionIds)
+                .boxed()
+                .sorted(Comparator.comparing(RepositoryNames::name))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        var cells = new BitSet(groups.size() * sortedIds.length);
+        for (int group = 0; group < groups.size(); group++)
+            for (int solution = 0; solution < sortedIds.length; solution++)
+                if (groups.get(group).hasAccessTo(sortedIds[solution]))
+                    cells.set(AccessMatrix.cellIndex(group, solution, sortedIds.length));
+
+        var groupNames = groups.stream().map(Group::name).toList();
+        var solutionNames = Arrays.stream(sortedIds).mapToObj(RepositoryNames::name).toList();
+        return new AccessMatrix(groupNames, solutionNames, cells);
+    }
+
+    /**
+     * Whether the other course has the same groups and the same solutions (in the same order), also for each
+     * organization.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Course course))
+            return false;
+
+        return groups.equals(course.groups)
+                && Arrays.equals(solutionIds, course.solutionIds)
+                && organizationSolutionIds.keySet().equals(course.organizationSolutionIds.keySet())
+                && organizationSolutionIds.entrySet().stream().allMatch(entry -> Arrays.equals(entry.getValue(),
+                        course.organizationSolutionIds.get(entry.getKey())));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * groups.hashCode() + Arrays.hashCode(solutionIds);
+    }
+
+    @Override
+    public String toString() {
+        return "Course[groups=" + groups + ", solutions=" + solutions() + "]";
+    }
+
+    private int[] solutionIdsFor(Group group) {
+        return organizationSolutionIds.getOrDefault(group.organization(), solutionIds);
     }
 }
@@ -5,16 +5,26 @@ import static es.uniovi.raul.solutions.debug.Debug.*;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.UnaryOperator;
 
 import es.uniovi.raul.solutions.course.naming.SolutionsDetectionStrategy;
 import es.uniovi.raul.solutions.github.GithubApi;
 import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.monitoring.*;
 
 /**
  * Represents a group of the course and its associated github team.
+ *
+ * It is safe to use from several threads. The accessible solutions are an immutable snapshot that is read without
+ * locks and replaced atomically. When they are not loaded yet, concurrent callers share the same in-flight fetch
+ * (single flight) instead of fetching them once each.
  */
 public final class Group {
 
+    private static final int MAX_FETCH_ATTEMPTS = 3;
+
     private final String groupName;
     private final String teamSlug;
     private final Optional<Schedule> schedule;
@@ -23,7 +33,18 @@ public final class Group {
     private final SolutionsDetectionStrategy solutionDetectionStrategy;
 
     // Accesible solutions -> solution repositories that the group has access to. This is a subset of the solutions in the course. Lazily loaded and cached.
-    private List<String> accesibleSolutions; // null = not loaded yet
+    private final AtomicReference<SolutionSet> accesibleSolutions = new AtomicReference<>(); // null = not loaded yet
+
+    // The fetch in progress, shared by all the threads that need the accessible solutions while it lasts
+    private final AtomicReference<CompletableFuture<SolutionSet>> inFlightFetch = new AtomicReference<>();
+
+    // Incremented on every grant, revoke and refresh, to detect fetches that may have missed them
+    private final AtomicLong changesCount = new AtomicLong();
+
+    // Where the next hidden solution is in a release order, for a snapshot of the accessible solutions
+    private final AtomicReference<NextHidden> nextHidden = new AtomicReference<>();
+
+    private volatile boolean writeVerification = false;
 
     /**
      * Constructs a Group with the specified configuration for managing a GitHub classroom group.
@@ -46,13 +67,19 @@ public final class Group {
         this.organizationName = organizationName;
         this.githubApi = githubApi;
         this.solutionDetectionStrategy = solutionDetectionStrategy;
-        this.accesibleSolutions = null; // Lazy loading
     }
 
     public String name() {
         return groupName;
     }
 
+    /**
+     * The GitHub organization of the team and its solutions.
+     */
+    public String organization() {
+        return organizationName;
+    }
+
     public Optional<Schedule> schedule() {
         return schedule;
     }
@@ -69,69 +96,266 @@ public final class Group {
     public List<String> getAccesibleSolutions()
             throws GithubApiException, IOException, InterruptedException {
 
-        return fetchSolutionsIfNeeded();
+        return fetchSolutionsIfNeeded().names();
     }
 
     public boolean hasAccessTo(String solution)
             throws GithubApiException, IOException, InterruptedException {
         notNull(solution);
 
-        return fetchSolutionsIfNeeded().contains(solution);
+        // The solutions must be loaded before looking up the ID, as loading them is what interns their names
+        var accesible = fetchSolutionsIfNeeded();
+        return accesible.contains(RepositoryNames.find(solution));
     }
 
+    /**
+     * Same as {@link #hasAccessTo(String)}, but using the {@link RepositoryNames} ID of the solution.
+     */
+    public boolean hasAccessTo(int solutionId)
+            throws GithubApiException, IOException, InterruptedException {
+
+        return fetchSolutionsIfNeeded().contains(solutionId);
+    }
+
+    /**
+     * Grants the group access to the solution. If the accessible solutions were already loaded, they are updated
+     * in place instead of being fetched again (unless it is a dry run, which does not change them).
+     */
     public void grantAccess(String solution)
             throws GithubApiException, IOException, InterruptedException {
 
         notNull(solution);
 
-        githubApi.grantAccess(organizationName, solution, teamSlug);
+        changeAccess("grant", solution, name -> githubApi.grantAccess(organizationName, name, teamSlug));
 
-        // Invalidate cache since access has changed
-        accesibleSolutions = null;
+        int id = RepositoryNames.intern(solution);
+        updateCache(id, cached -> cached.with(id));
     }
 
+    /**
+     * Revokes the group access to the solution. If the accessible solutions were already loaded, they are updated
+     * in place instead of being fetched again (unless it is a dry run, which does not change them).
+     */
     public void revokeAccess(String solution)
             throws GithubApiException, IOException, InterruptedException {
 
         notNull(solution);
 
-        githubApi.revokeAccess(organizationName, solution, teamSlug);
+        changeAccess("revoke", solution, name -> githubApi.revokeAccess(organizationName, name, teamSlug));
+
+        int id = RepositoryNames.intern(solution);
+        updateCache(id, cached -> cached.without(id));
+    }
+
+    /**
+     * Returns the first solution, in the given release order, that the group cannot access yet.
+     *
+     * The position of that solution is remembered and moved on each grant and revoke, so asking again is constant
+     * time (revealing the solutions in order just moves it one position each time).
+     */
+    public Optional<String> nextHiddenSolution(ReleaseOrder order)
+            throws GithubApiException, IOException, InterruptedException {
+
+        notNull(order, "order");
+
+        var solutions = fetchSolutionsIfNeeded();
+        var cached = nextHidden.get();
+        if (cached == null || cached.order() != order || cached.solutions() != solutions) {
+            cached = new NextHidden(order, solutions, order.firstNotIn(solutions, 0));
+            nextHidden.set(cached);
+        }
+
+        return cached.position() < order.size() ? Optional.of(order.name(cached.position())) : Optional.empty();
+    }
 
-        // Invalidate cache since access has changed
-        accesibleSolutions = null;
+    /**
+     * If enabled, after each grant or revoke the accessible solutions are fetched again in the background to
+     * verify that GitHub reflects the change. Disabled by default, as the cache is already updated with the
+     * result of the operation.
+     */
+    public void setWriteVerification(boolean enabled) {
+        this.writeVerification = enabled;
+    }
+
+    /**
+     * Discards the cached accessible solutions, so they are fetched again the next time they are needed.
+     */
+    public void refresh() {
+        changesCount.incrementAndGet();
+        accesibleSolutions.set(null);
+    }
+
+    // Applies the grant or revoke in GitHub, recording it as a JFR event and in the metrics
+    private void changeAccess(String operation, String solution, Concurrently.Action<String> change)
+            throws GithubApiException, IOException, InterruptedException {
+
+        var event = new AccessChangeEvent(groupName, solution, operation);
+        event.begin();
+        boolean successful = false;
+        try {
+            change.apply(solution);
+            successful = true;
+        } finally {
+            event.setSuccessful(successful);
+            event.commit();
+            Metrics.accessChange(operation, successful);
+        }
+    }
+
+    // Write-through: the operation has succeeded, so the cache can be updated without asking GitHub again. In a
+    // dry run nothing was changed, so neither is the cache
+    private void updateCache(int changedId, UnaryOperator<SolutionSet> update) {
+        if (githubApi.isDryRun())
+            return;
+
+        changesCount.incrementAndGet();
+
+        // If not loaded yet there is nothing to update
+        SolutionSet before;
+        SolutionSet after;
+        do {
+            before = accesibleSolutions.get();
+            after = before == null ? null : update.apply(before);
+        } while (!accesibleSolutions.compareAndSet(before, after));
+
+        if (after != null)
+            moveNextHidden(before, after, changedId);
+
+        if (writeVerification)
+            Thread.startVirtualThread(this::verifyCache);
+    }
+
+    // Updates the next hidden solution with a grant or revoke instead of searching it again. A granted solution
+    // only moves it if it was the next hidden one; a revoked one, if it was before it
+    private void moveNextHidden(SolutionSet before, SolutionSet after, int changedId) {
+        var cached = nextHidden.get();
+        if (cached == null || cached.solutions() != before)
+            return; // Computed again when needed
+
+        var order = cached.order();
+        int changedPosition = order.position(changedId);
+        int position = cached.position();
+        if (changedPosition == position && after.contains(changedId))
+            position = order.firstNotIn(after, position + 1);
+        else if (changedPosition >= 0 && changedPosition < position && !after.contains(changedId))
+            position = changedPosition;
+
+        nextHidden.compareAndSet(cached, new NextHidden(order, after, position));
+    }
+
+    private record NextHidden(ReleaseOrder order, SolutionSet solutions, int position) {
+    }
+
+    // Replaces the cache with the actual state in GitHub. Errors are ignored, as the cache is just kept as it is
+    private void verifyCache() {
+        try {
+            var before = accesibleSolutions.get();
+            long changesBefore = changesCount.get();
+            var fetched = fetchAccesibleSolutions();
+            // If there were more changes meanwhile, the fetched state may not include them. A change made after
+            // checking it replaces the snapshot, so it is only replaced if it is still the one read before
+            if (changesCount.get() == changesBefore)
+                accesibleSolutions.compareAndSet(before, fetched);
+        } catch (GithubApiException | IOException e) {
+            // Keep the optimistic state
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     // Lazy loading of the solution repositories that the group has access to.
-    private List<String> fetchSolutionsIfNeeded()
+    private SolutionSet fetchSolutionsIfNeeded()
+            throws GithubApiException, IOException, InterruptedException {
+
+        var cached = accesibleSolutions.get();
+        Metrics.groupCacheAccess(cached != null);
+        if (cached != null)
+            return cached;
+
+        return loadShared();
+    }
+
+    // The first thread loads the solutions and the rest wait for it. If that thread is interrupted, the others were
+    // not: they start again and one of them loads them
+    private SolutionSet loadShared()
+            throws GithubApiException, IOException, InterruptedException {
+
+        while (true) {
+            var ownFetch = new CompletableFuture<SolutionSet>();
+            var currentFetch = inFlightFetch.compareAndExchange(null, ownFetch);
+            if (currentFetch != null) {
+                try {
+                    return Concurrently.await(currentFetch); // Another thread is already fetching them
+                } catch (CancellationException e) {
+                    continue;
+                }
+            }
+
+            // Another fetch may have finished between reading the cache and starting this one
+            var cached = accesibleSolutions.get();
+            if (cached != null) {
+                ownFetch.complete(cached);
+                inFlightFetch.compareAndSet(ownFetch, null);
+                return cached;
+            }
+
+            try (var span = Tracer.span("loadGroup", groupName)) {
+                ownFetch.complete(loadSnapshot());
+            } catch (InterruptedException e) {
+                inFlightFetch.compareAndSet(ownFetch, null);
+                ownFetch.cancel(false);
+                throw e;
+            } catch (Throwable e) {
+                ownFetch.completeExceptionally(e);
+            } finally {
+                inFlightFetch.compareAndSet(ownFetch, null);
+            }
+            return Concurrently.await(ownFetch);
+        }
+    }
+
+    // Fetches the accessible solutions and publishes them as the cached snapshot.
+    // If the group is changed during the fetch, the result may not include the change, so it is fetched again.
+    // It is published before checking for changes: a change made after that already updates the new snapshot
+    private SolutionSet loadSnapshot()
             throws GithubApiException, IOException, InterruptedException {
 
-        if (accesibleSolutions == null)
-            accesibleSolutions = fetchAccesibleSolutions();
+        SolutionSet fetched;
+        int attempt = 0;
+        boolean changedMeanwhile;
+        do {
+            long changesBefore = changesCount.get();
+            fetched = fetchAccesibleSolutions();
+            accesibleSolutions.set(fetched);
+            changedMeanwhile = changesCount.get() != changesBefore;
+            attempt++;
+        } while (changedMeanwhile && attempt < MAX_FETCH_ATTEMPTS);
 
-        return Collections.unmodifiableList(accesibleSolutions);
+        return fetched;
     }
 
     // Fetches the list of solution repositories that the group has access to.
-    private List<String> fetchAccesibleSolutions()
+    private SolutionSet fetchAccesibleSolutions()
             throws GithubApiException, IOException, InterruptedException {
 
-        return githubApi
+        return new SolutionSet(githubApi
                 .fetchRepositoriesForTeam(organizationName, teamSlug)
                 .stream()
                 .filter(solutionDetectionStrategy::isSolutionRepository)
-                .map(this::extractRepositoryName)
-                .toList();
+                .mapToInt(this::internRepositoryName)
+                .toArray());
     }
 
     /**
-     * Extracts the repository name from a full name that may include organization prefix.
+     * Interns the repository name of a full name that may include organization prefix.
+     * The repository name is not extracted with substring, so no new string is created if the name is already known.
      * For example:
-     * "org/repo" -> "repo"
-     * "repo" -> "repo"
+     * "org/repo" -> id of "repo"
+     * "repo" -> id of "repo"
      */
-    private String extractRepositoryName(String fullName) {
+    private int internRepositoryName(String fullName) {
         int lastSlash = fullName.lastIndexOf('/');
-        return lastSlash >= 0 ? fullName.substring(lastSlash + 1) : fullName;
+        return RepositoryNames.intern(fullName, lastSlash + 1, fullName.length());
     }
 
 }
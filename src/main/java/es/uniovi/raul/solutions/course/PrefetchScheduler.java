@@ -0,0 +1,136 @@
+package es.uniovi.raul.solutions.course;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.github.RequestPriority;
+import es.uniovi.raul.solutions.monitoring.Tracer;
+
+/**
+ * Loads the accessible solutions of the groups in the background, in order of priority according to their
+ * schedule:
+ *
+ * <ol>
+ * <li>The groups that are in session now. They are loaded before starting with any other group, so the group
+ * that is guessed by the schedule is ready after a single request.</li>
+ * <li>The groups that meet later today, by start time.</li>
+ * <li>The rest of the groups, in their order in the course.</li>
+ * </ol>
+ *
+ * Loading a group that is already being prefetched just waits for the same request (see {@link Group}). Errors are
+ * ignored: they will be reported when the group is actually used. The requests are sent in the background (see
+ * {@link RequestPriority}), so they do not delay the groups that are used meanwhile.
+ */
+public final class PrefetchScheduler implements AutoCloseable {
+
+    private final int maxParallelism;
+    private Thread coordinator;
+
+    public PrefetchScheduler(int maxParallelism) {
+        if (maxParallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1.");
+
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * Starts loading the groups in the background. It can only be called once.
+     *
+     * @param day the current day of the week (for example, "monday")
+     * @param time the current time
+     */
+    public synchronized void start(List<Group> groups, String day, LocalTime time) {
+        notNull(groups, day, time);
+        if (coordinator != null)
+            throw new IllegalStateException("The prefetch has already been started.");
+
+        var ordered = byPriority(groups, day, time);
+        var inSession = ordered.stream().filter(group -> group.isScheduledFor(day, time)).toList();
+        var rest = ordered.subList(inSession.size(), ordered.size());
+
+        coordinator = Thread.ofVirtual().name("prefetch").start(() -> {
+            try (var span = Tracer.span("prefetchGroups")) {
+                load(inSession);
+                load(rest);
+            } catch (InterruptedException e) {
+                // Stopped by close()
+            }
+        });
+    }
+
+    /**
+     * Returns the groups in the order in which they are prefetched.
+     */
+    public static List<Group> byPriority(List<Group> groups, String day, LocalTime time) {
+        notNull(groups, day, time);
+
+        var inSession = new ArrayList<Group>();
+        var laterToday = new ArrayList<Group>();
+        var rest = new ArrayList<Group>();
+        for (var group : groups) {
+            if (group.isScheduledFor(day, time))
+                inSession.add(group);
+            else if (group.schedule().filter(schedule -> meetsLater(schedule, day, time)).isPresent())
+                laterToday.add(group);
+            else
+                rest.add(group);
+        }
+        laterToday.sort(Comparator.comparing(group -> group.schedule().orElseThrow().startTime()));
+
+        var ordered = new ArrayList<Group>(groups.size());
+        ordered.addAll(inSession);
+        ordered.addAll(laterToday);
+        ordered.addAll(rest);
+        return ordered;
+    }
+
+    /**
+     * Stops the loading of the groups that have not started yet.
+     */
+    @Override
+    public synchronized void close() {
+        if (coordinator != null)
+            coordinator.interrupt();
+    }
+
+    private static boolean meetsLater(Schedule schedule, String day, LocalTime time) {
+        return schedule.dayOfWeek().equalsIgnoreCase(day) && schedule.startTime().isAfter(time);
+    }
+
+    // Loads the groups in order, with at most maxParallelism of them at the same time
+    private void load(List<Group> groups) throws InterruptedException {
+        if (groups.isEmpty())
+            return;
+
+        var pending = new ConcurrentLinkedQueue<>(groups);
+        var executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int worker = 0; worker < Math.min(maxParallelism, groups.size()); worker++)
+                executor.submit(() -> {
+                    RequestPriority.setBackground(true);
+                    Group group;
+                    while ((group = pending.poll()) != null && !Thread.currentThread().isInterrupted())
+                        loadQuietly(group);
+                });
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void loadQuietly(Group group) {
+        try {
+            group.getAccesibleSolutions();
+        } catch (GithubApiException | IOException e) {
+            // Reported when the group is used
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package es.uniovi.raul.solutions.course;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.util.*;
+
+/**
+ * The order in which the solutions are released to the groups: by name, comparing the numbers in the names by
+ * their value ("week2-solution" goes before "week10-solution", and "01-x" is the same position as "1-x").
+ *
+ * It is computed once per course. The sort key of each name is built once, instead of in every comparison.
+ */
+public final class ReleaseOrder {
+
+    /**
+     * Compares names by their text (ignoring case) and by the value of the numbers in them. It builds the sort keys
+     * in every comparison: to sort many names, {@link #sort(Collection)} is faster.
+     */
+    public static final Comparator<String> NATURAL = Comparator.comparing(SortKey::of);
+
+    private final int[] ids; // By position
+    private final int[] positions; // By RepositoryNames ID (-1 if not a solution of this order)
+
+    /**
+     * Creates the release order of the given solutions.
+     *
+     * @param solutionIds the {@link RepositoryNames} IDs of the solutions
+     */
+    public ReleaseOrder(int[] solutionIds) {
+        notNull(solutionIds, "solutionIds");
+
+        var keys = new ArrayList<Map.Entry<SortKey, Integer>>(solutionIds.length);
+        for (int id : solutionIds)
+            keys.add(Map.entry(SortKey.of(RepositoryNames.name(id)), id));
+        keys.sort(Map.Entry.comparingByKey());
+
+        this.ids = keys.stream().mapToInt(Map.Entry::getValue).toArray();
+        this.positions = new int[Arrays.stream(ids).max().orElse(-1) + 1];
+        Arrays.fill(positions, -1);
+        for (int position = 0; position < ids.length; position++)
+            positions[ids[position]] = position;
+    }
+
+    /**
+     * Returns the names sorted as {@link #NATURAL}, building the sort key of each one once.
+     */
+    public static List<String> sort(Collection<String> names) {
+        notNull(names, "names");
+
+        var keys = new ArrayList<SortKey>(names.size());
+        for (var name : names)
+            keys.add(SortKey.of(name));
+        Collections.sort(keys);
+        return keys.stream().map(SortKey::name).toList();
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * The names of the solutions in release order.
+     */
+    public List<String> names() {
+        var names = new ArrayList<String>(ids.length);
+        for (int id : ids)
+            names.add(RepositoryNames.name(id));
+        return Collections.unmodifiableList(names);
+    }
+
+    String name(int position) {
+        return RepositoryNames.name(ids[position]);
+    }
+
+    // The position of the solution, or -1 if it is not in this order
+    int position(int id) {
+        return id >= 0 && id < positions.length ? positions[id] : -1;
+    }
+
+    // The position of the first solution, from the given one, that is not in the set (size() if there is none)
+    int firstNotIn(SolutionSet solutions, int from) {
+        int position = from;
+        while (position < ids.length && solutions.contains(ids[position]))
+            position++;
+        return position;
+    }
+
+    // "week10-solution" -> ["week", 10, "-solution"]. Numbers are kept as text without leading zeros, so they
+    // can be compared by length and then by digits, whatever their size
+    private record SortKey(String name, List<String> chunks) implements Comparable<SortKey> {
+
+        static SortKey of(String name) {
+            var chunks = new ArrayList<String>();
+            int start = 0;
+            while (start < name.length()) {
+                boolean digits = Character.isDigit(name.charAt(start));
+                int end = start;
+                while (end < name.length() && Character.isDigit(name.charAt(end)) == digits)
+                    end++;
+                var chunk = name.substring(start, end);
+                chunks.add(digits ? stripLeadingZeros(chunk) : chunk.toLowerCase(Locale.ROOT));
+                start = end;
+            }
+            return new SortKey(name, chunks);
+        }
+
+        @Override
+        public int compareTo(SortKey other) {
+            for (int i = 0; i < Math.min(chunks.size(), other.chunks.size()); i++) {
+                var chunk = chunks.get(i);
+                var otherChunk = other.chunks.get(i);
+                boolean isNumber = Character.isDigit(chunk.charAt(0));
+                boolean otherIsNumber = Character.isDigit(otherChunk.charAt(0));
+
+                int result;
+                if (isNumber && otherIsNumber) {
+                    result = Integer.compare(chunk.length(), otherChunk.length());
+                    if (result == 0)
+                        result = chunk.compareTo(otherChunk);
+                } else
+                    result = chunk.compareTo(otherChunk);
+                if (result != 0)
+                    return result;
+            }
+            int result = Integer.compare(chunks.size(), other.chunks.size());
+            return result != 0 ? result : name.compareTo(other.name); // Deterministic for "01-x" and "1-x"
+        }
+
+        private static String stripLeadingZeros(String digits) {
+            int start = 0;
+            while (start < digits.length() - 1 && digits.charAt(start) == '0')
+                start++;
+            return digits.substring(start);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package es.uniovi.raul.solutions.course;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+/**
+ * Process-wide dictionary of repository names (similar to {@link String#intern()}).
+ *
+ * Each distinct name is stored only once and identified by a dense int ID (0, 1, 2...). This allows
+ * groups and courses to keep their solutions as int arrays and bitsets instead of lists of strings,
+ * which matters in organizations with tens of thousands of repositories. Strings are only needed
+ * again when something has to be displayed.
+ *
+ * The names are kept in an array indexed by ID and the lookup table is an open addressing hash table of ints,
+ * so there is no boxing and no per-entry objects.
+ */
+public final class RepositoryNames {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static String[] names = new String[INITIAL_CAPACITY];
+    private static int[] slots = new int[INITIAL_CAPACITY * 2]; // Stores ID + 1. 0 = empty slot
+    private static int size = 0;
+
+    /**
+     * Returns the ID of the given name, adding it to the dictionary if it was not there yet.
+     */
+    public static int intern(String name) {
+        notNull(name, "name");
+
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Same as {@code intern(text.substring(start, end))}, but the substring is only created if the
+     * name was not in the dictionary yet.
+     * For example, it allows to intern "repo" from "org/repo" without allocating a new string every time.
+     */
+    public static synchronized int intern(String text, int start, int end) {
+        notNull(text, "text");
+        if (start < 0 || end > text.length() || start >= end)
+            throw new IllegalArgumentException("Invalid range [" + start + ", " + end + ") for '" + text + "'");
+
+        int slot = findSlot(text, start, end);
+        if (slots[slot] != 0)
+            return slots[slot] - 1;
+
+        if (size == names.length)
+            grow();
+
+        int id = size++;
+        names[id] = text.substring(start, end);
+        insert(id);
+        return id;
+    }
+
+    /**
+     * Returns the ID of the given name or -1 if it has never been interned.
+     */
+    public static synchronized int find(String name) {
+        notNull(name, "name");
+
+        if (name.isEmpty())
+            return -1;
+
+        return slots[findSlot(name, 0, name.length())] - 1;
+    }
+
+    /**
+     * Returns the name with the given ID.
+     */
+    public static synchronized String name(int id) {
+        if (id < 0 || id >= size)
+            throw new IllegalArgumentException("Unknown repository ID: " + id);
+
+        return names[id];
+    }
+
+    //# Auxiliary methods -----------------------------------
+
+    // Returns the slot where the name is stored or the empty slot where it should be inserted
+    private static int findSlot(String text, int start, int end) {
+        int length = end - start;
+        int mask = slots.length - 1;
+        int slot = spread(hash(text, start, end)) & mask;
+
+        while (slots[slot] != 0) {
+            String candidate = names[slots[slot] - 1];
+            if (candidate.length() == length && candidate.regionMatches(0, text, start, length))
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static void insert(int id) {
+        int mask = slots.length - 1;
+        int slot = spread(names[id].hashCode()) & mask;
+        while (slots[slot] != 0)
+            slot = (slot + 1) & mask;
+        slots[slot] = id + 1;
+    }
+
+    // The hash table is kept at most half full
+    private static void grow() {
+        String[] oldNames = names;
+        names = new String[oldNames.length * 2];
+        System.arraycopy(oldNames, 0, names, 0, size);
+
+        slots = new int[names.length * 2];
+        for (int id = 0; id < size; id++)
+            insert(id);
+    }
+
+    // Same value as String.hashCode() of the substring, so it can be compared with the cached hash of the stored names
+    private static int hash(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + text.charAt(i);
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,65 @@
+package es.uniovi.raul.solutions.course;
+
+import java.util.*;
+
+/**
+ * Immutable set of solutions identified by their {@link RepositoryNames} ID.
+ *
+ * It keeps the IDs in their original order (to show them in the same order GitHub returned them) and a
+ * bitset for constant time membership checks.
+ */
+final class SolutionSet {
+
+    static final SolutionSet EMPTY = new SolutionSet(new int[0]);
+
+    private final int[] ids;
+    private final BitSet members;
+
+    // The array must not be modified after being passed to the constructor
+    SolutionSet(int[] ids) {
+        this.ids = ids;
+        this.members = new BitSet();
+        for (int id : ids)
+            members.set(id);
+    }
+
+    boolean contains(int id) {
+        return id >= 0 && members.get(id);
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns a new set that also contains the given solution (or this one if it was already included).
+     */
+    SolutionSet with(int id) {
+        if (contains(id))
+            return this;
+
+        int[] newIds = Arrays.copyOf(ids, ids.length + 1);
+        newIds[ids.length] = id;
+        return new SolutionSet(newIds);
+    }
+
+    /**
+     * Returns a new set without the given solution (or this one if it was not included).
+     */
+    SolutionSet without(int id) {
+        if (!contains(id))
+            return this;
+
+        return new SolutionSet(Arrays.stream(ids).filter(other -> other != id).toArray());
+    }
+
+    /**
+     * Materializes the names of the solutions. Only meant for displaying them.
+     */
+    List<String> names() {
+        var result = new ArrayList<String>(ids.length);
+        for (int id : ids)
+            result.add(RepositoryNames.name(id));
+        return Collections.unmodifiableList(result);
+    }
+}
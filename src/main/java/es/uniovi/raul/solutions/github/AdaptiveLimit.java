@@ -0,0 +1,177 @@
+package es.uniovi.raul.solutions.github;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+
+import es.uniovi.raul.solutions.monitoring.*;
+
+/**
+ * Limits how many requests are sent to GitHub at the same time, adapting the limit to what GitHub and the network
+ * can take (AIMD: additive increase, multiplicative decrease).
+ *
+ * While the requests succeed with their usual latency, the limit grows by one every time a limit's worth of
+ * requests finishes. When GitHub rejects a request for exceeding a rate limit, or a request takes much longer than
+ * usual, the limit is halved. The requests that were already running when the limit was cut do not cut it again.
+ * Each HTTP request is measured on its own, so the pages of a long listing are compared with each other and not
+ * with the whole listing.
+ *
+ * Each organization has its own limit, which is published in the metrics. The background requests use at most half
+ * of it and wait while other requests are waiting (see {@link RequestPriority}).
+ */
+final class AdaptiveLimit {
+
+    static final int DEFAULT_INITIAL_LIMIT = 8;
+    static final int DEFAULT_MAX_LIMIT = 64;
+
+    private final int initialLimit;
+    private final int maxLimit;
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<>();
+
+    AdaptiveLimit() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    AdaptiveLimit(int initialLimit, int maxLimit) {
+        if (initialLimit < 1 || maxLimit < initialLimit)
+            throw new IllegalArgumentException("The limits must be at least 1 and the initial one up to the maximum.");
+
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Waits until a request can be sent to the organization.
+     *
+     * @param background whether it is a background request, which lets the rest go first
+     * @return when the request starts, to be passed to {@link #release}
+     */
+    long acquire(String organization, boolean background) throws InterruptedException {
+        return limitOf(organization).acquire(background);
+    }
+
+    /**
+     * Frees the slot of a request, adapting the limit to how it went.
+     */
+    void release(String organization, String operation, long start, Outcome outcome) {
+        limitOf(organization).release(operation, start, outcome);
+    }
+
+    /**
+     * The current limit of the organization.
+     */
+    int limit(String organization) {
+        return limitOf(organization).current();
+    }
+
+    private Limit limitOf(String organization) {
+        return limits.computeIfAbsent(organization, key -> new Limit(key, initialLimit, maxLimit));
+    }
+
+    enum Outcome {
+        SUCCEEDED, RATE_LIMITED, FAILED
+    }
+
+    // The limit of an organization. A lock is used instead of synchronized so waiting virtual threads do not
+    // block their carrier threads
+    private static final class Limit {
+
+        private static final double DECREASE_FACTOR = 0.5;
+        private static final double SPIKE_FACTOR = 3;
+        private static final double LATENCY_SMOOTHING = 0.1;
+        private static final long MIN_SPIKE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+        private final int maxLimit;
+        private final Gauge published;
+        private final Lock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private final Map<String, Double> usualLatencies = new HashMap<>(); // By operation, guarded by lock
+
+        private double limit; // Guarded by lock
+        private int inFlight; // Guarded by lock
+        private int waiting; // Requests that are not in the background, guarded by lock
+        private long lastDecrease = Long.MIN_VALUE; // Guarded by lock
+
+        Limit(String organization, int initialLimit, int maxLimit) {
+            this.maxLimit = maxLimit;
+            this.limit = initialLimit;
+            this.published = Metrics.githubConcurrencyLimit(organization);
+            published.set(limit);
+        }
+
+        int current() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Waits for a free slot and returns when the request starts
+        long acquire(boolean background) throws InterruptedException {
+            lock.lock();
+            try {
+                if (background)
+                    awaitBackgroundSlot();
+                else
+                    awaitSlot();
+                inFlight++;
+                return System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void awaitSlot() throws InterruptedException {
+            waiting++;
+            try {
+                while (inFlight >= (int) limit)
+                    released.await();
+            } finally {
+                waiting--;
+                if (waiting == 0)
+                    released.signalAll(); // The background requests may go now
+            }
+        }
+
+        private void awaitBackgroundSlot() throws InterruptedException {
+            while (inFlight >= Math.max(1, (int) limit / 2) || waiting > 0)
+                released.await();
+        }
+
+        void release(String operation, long start, Outcome outcome) {
+            long latency = System.nanoTime() - start;
+            lock.lock();
+            try {
+                inFlight--;
+                // A failure that is not a rate limit says nothing about the load, so it does not change the limit
+                if (outcome == Outcome.RATE_LIMITED || outcome == Outcome.SUCCEEDED && isSpike(operation, latency))
+                    decrease(start);
+                else if (outcome == Outcome.SUCCEEDED)
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                published.set(limit);
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Compares the latency with the usual one of the requests of the operation, which then takes it into
+        // account. Small differences are not spikes, even if they are several times the usual latency of a fast request
+        private boolean isSpike(String operation, long latency) {
+            var usual = usualLatencies.get(operation);
+            usualLatencies.put(operation, usual == null ? latency
+                    : usual + LATENCY_SMOOTHING * (latency - usual));
+            return usual != null && latency > SPIKE_FACTOR * usual && latency - usual > MIN_SPIKE_NANOS;
+        }
+
+        // Only the requests started after the last decrease can decrease the limit again
+        private void decrease(long start) {
+            if (start <= lastDecrease)
+                return;
+            limit = Math.max(1, limit * DECREASE_FACTOR);
+            lastDecrease = System.nanoTime();
+        }
+    }
+}
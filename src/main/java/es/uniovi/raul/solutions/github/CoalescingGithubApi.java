@@ -0,0 +1,131 @@
+package es.uniovi.raul.solutions.github;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A decorator for {@link GithubApi} that shares the result of identical read operations that are in flight at the
+ * same time: if the same list is requested while it is being downloaded, the caller waits for that download instead
+ * of starting another one. Nothing is cached once the download finishes.
+ *
+ * A grant or revoke detaches the download of the repositories of that team that is in flight, as it may not
+ * include the change; those who request them afterwards start a new one.
+ */
+public final class CoalescingGithubApi implements GithubApi {
+
+    private final GithubApi delegate;
+    private final ConcurrentMap<Request, CompletableFuture<List<?>>> inFlight = new ConcurrentHashMap<>();
+
+    public CoalescingGithubApi(GithubApi delegate) {
+        notNull(delegate, "delegate");
+
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<Team> fetchTeams(String organization)
+            throws GithubApiException, IOException, InterruptedException {
+        return coalesce(new Request("fetchTeams", organization, null), () -> delegate.fetchTeams(organization));
+    }
+
+    @Override
+    public List<String> fetchAllRepositories(String organization)
+            throws GithubApiException, IOException, InterruptedException {
+        return coalesce(new Request("fetchAllRepositories", organization, null),
+                () -> delegate.fetchAllRepositories(organization));
+    }
+
+    @Override
+    public List<String> fetchRepositoriesForTeam(String organization, String teamSlug)
+            throws GithubApiException, IOException, InterruptedException {
+        return coalesce(new Request("fetchRepositoriesForTeam", organization, teamSlug),
+                () -> delegate.fetchRepositoriesForTeam(organization, teamSlug));
+    }
+
+    @Override
+    public void grantAccess(String organization, String repository, String teamSlug)
+            throws GithubApiException, IOException, InterruptedException {
+        inFlight.remove(new Request("fetchRepositoriesForTeam", organization, teamSlug));
+        delegate.grantAccess(organization, repository, teamSlug);
+    }
+
+    @Override
+    public void revokeAccess(String organization, String repository, String teamSlug)
+            throws GithubApiException, IOException, InterruptedException {
+        inFlight.remove(new Request("fetchRepositoriesForTeam", organization, teamSlug));
+        delegate.revokeAccess(organization, repository, teamSlug);
+    }
+
+    @Override
+    public boolean isDryRun() {
+        return delegate.isDryRun();
+    }
+
+    // The first caller downloads the list and the rest wait for it. The list is shared, so it is made unmodifiable.
+    // If the one downloading it is interrupted, the download is cancelled and those waiting try again: one of them
+    // becomes the one downloading it
+    @SuppressWarnings("unchecked")
+    private <T> List<T> coalesce(Request request, Fetch<T> fetch)
+            throws GithubApiException, IOException, InterruptedException {
+
+        while (true) {
+            var download = new CompletableFuture<List<?>>();
+            var existing = inFlight.putIfAbsent(request, download);
+            if (existing == null)
+                return download(request, download, fetch);
+
+            try {
+                return (List<T>) await(existing);
+            } catch (CancellationException e) {
+                // Its owner was interrupted: try again
+            }
+        }
+    }
+
+    private <T> List<T> download(Request request, CompletableFuture<List<?>> download, Fetch<T> fetch)
+            throws GithubApiException, IOException, InterruptedException {
+
+        try {
+            var result = List.copyOf(fetch.get());
+            download.complete(result);
+            return result;
+        } catch (InterruptedException e) {
+            inFlight.remove(request, download); // Before cancelling it, so those retrying do not find it
+            download.cancel(false);
+            throw e;
+        } catch (GithubApiException | IOException | RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(request, download);
+        }
+    }
+
+    // The exception of the download is thrown to all the callers that waited for it. Only the interruption of the
+    // caller itself is thrown as InterruptedException
+    private static List<?> await(CompletableFuture<List<?>> download)
+            throws GithubApiException, IOException, InterruptedException {
+
+        try {
+            return download.get();
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case GithubApiException cause -> throw cause;
+                case IOException cause -> throw cause;
+                case RuntimeException cause -> throw cause;
+                default -> throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private record Request(String operation, String organization, String teamSlug) {
+    }
+
+    @FunctionalInterface
+    private interface Fetch<T> {
+        List<T> get() throws GithubApiException, IOException, InterruptedException;
+    }
+}
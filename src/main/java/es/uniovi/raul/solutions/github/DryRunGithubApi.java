@@ -48,4 +48,9 @@ public final class DryRunGithubApi implements GithubApi {
         System.out.printf("[DRY RUN] Would revoke access from team '%s' on repository '%s/%s'%n",
                 teamSlug, organization, repository);
     }
+
+    @Override
+    public boolean isDryRun() {
+        return true;
+    }
 }
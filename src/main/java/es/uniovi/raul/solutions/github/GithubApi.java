@@ -1,6 +1,7 @@
 package es.uniovi.raul.solutions.github;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
 
 /**
@@ -71,6 +72,16 @@ public interface GithubApi {
     void revokeAccess(String organization, String repository, String teamSlug)
             throws GithubApiException, IOException, InterruptedException;
 
+    /**
+     * Whether the grants and revokes are only reported and not made in GitHub, so the callers must not take the
+     * access as changed.
+     *
+     * @return false by default
+     */
+    default boolean isDryRun() {
+        return false;
+    }
+
     /**
      * Base exception for all GitHub API-related errors.
      */
@@ -101,4 +112,24 @@ public interface GithubApi {
             super(message);
         }
     }
+
+    /**
+    * Exception thrown when GitHub rejects the operation because too many requests were sent: a 429 response or a
+    * 403 response for exceeding the primary or a secondary rate limit.
+    */
+    class RateLimitedException extends RejectedOperationException {
+        private final transient Optional<Duration> retryAfter;
+
+        public RateLimitedException(String message, Optional<Duration> retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+
+        /**
+         * How long GitHub asked to wait before trying again, if it said so.
+         */
+        public Optional<Duration> retryAfter() {
+            return retryAfter;
+        }
+    }
 }
@@ -6,18 +6,48 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.http.*;
 import java.net.http.HttpRequest.Builder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.databind.*;
 
+import es.uniovi.raul.solutions.github.AdaptiveLimit.Outcome;
+import es.uniovi.raul.solutions.monitoring.*;
+
 /**
  * Github API implementation.
+ *
+ * Every request has a timeout. The GET requests, which can be repeated safely, are sent again if they take much
+ * longer than usual, and the first response is used (see {@link HedgingPolicy}). The requests sent at the same time
+ * to each organization are limited, adapting the limit to the rate limits and latency of GitHub (see
+ * {@link AdaptiveLimit}).
  */
 public final class GithubApiImpl implements GithubApi {
 
+    /**
+     * Base URL of the public GitHub API.
+     */
+    public static final String DEFAULT_API_URL = "https://api.github.com";
+
+    /**
+     * Maximum number of requests sent at the same time to each organization. The actual limit adapts below it, so
+     * running more tasks at the same time than this only makes them wait.
+     */
+    public static final int MAX_CONCURRENT_REQUESTS = AdaptiveLimit.DEFAULT_MAX_LIMIT;
+
+    static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
     // HTTP Status Codes
     private static final int HTTP_OK = 200;
     private static final int HTTP_NO_CONTENT = 204;
+    private static final int HTTP_FORBIDDEN = 403;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
 
     // Error message literals
     private static final String ORGANIZATION_PREFIX = "Organization '";
@@ -26,15 +56,42 @@ public final class GithubApiImpl implements GithubApi {
     private static final String QUOTE_SUFFIX = "'";
 
     private final String token;
-    private final HttpClient client;
-    private final ObjectMapper mapper;
+    private final String apiUrl;
+    private final HedgingPolicy hedging;
+    private final Duration requestTimeout;
+    private final AdaptiveLimit limits;
+    // Creating the client initializes TLS and creating the mapper loads most of Jackson, which takes hundreds
+    // of milliseconds. They are created on the first request, usually while the main thread does other work
+    private final Lazy<HttpClient> client = new Lazy<>("createHttpClient",
+            () -> HttpClient.newBuilder().connectTimeout(CONNECT_TIMEOUT).build());
+    private final Lazy<ObjectMapper> mapper = new Lazy<>("createObjectMapper", ObjectMapper::new);
 
     public GithubApiImpl(String token) {
+        this(token, DEFAULT_API_URL);
+    }
+
+    /**
+     * Creates an implementation that connects to the given API base URL instead of the public GitHub API
+     * (for example, a GitHub Enterprise server or a local simulator).
+     */
+    public GithubApiImpl(String token, String apiUrl) {
+        this(token, apiUrl, HedgingPolicy.DEFAULT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    GithubApiImpl(String token, String apiUrl, HedgingPolicy hedging, Duration requestTimeout) {
+        this(token, apiUrl, hedging, requestTimeout, new AdaptiveLimit());
+    }
+
+    GithubApiImpl(String token, String apiUrl, HedgingPolicy hedging, Duration requestTimeout, AdaptiveLimit limits) {
         if (token == null || token.isBlank())
             throw new IllegalArgumentException("Token cannot be null or blank.");
+        if (apiUrl == null || apiUrl.isBlank())
+            throw new IllegalArgumentException("API URL cannot be null or blank.");
         this.token = token;
-        this.client = HttpClient.newHttpClient();
-        this.mapper = new ObjectMapper();
+        this.apiUrl = apiUrl.endsWith("/") ? apiUrl.substring(0, apiUrl.length() - 1) : apiUrl;
+        this.hedging = hedging;
+        this.requestTimeout = requestTimeout;
+        this.limits = limits;
     }
 
     @Override
@@ -42,16 +99,16 @@ public final class GithubApiImpl implements GithubApi {
             throws GithubApiException, IOException, InterruptedException {
 
         List<Team> teams = new ArrayList<>();
-        String url = "https://api.github.com/orgs/" + organization + "/teams";
+        String url = apiUrl + "/orgs/" + organization + "/teams";
         HttpRequest request = createHttpRequestBuilder(url).build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send("fetchTeams", organization, request);
 
         if (response.statusCode() != HTTP_OK)
             throw new RejectedOperationException(buildErrorMessage(response.statusCode(),
                     "fetch teams", ORGANIZATION_PREFIX + organization + QUOTE_SUFFIX, response.body()));
 
-        JsonNode root = mapper.readTree(response.body());
+        JsonNode root = mapper.get().readTree(response.body());
         if (!root.isArray())
             throw new UnexpectedFormatException("Expected a JSON array for teams, got: " + root.getNodeType());
 
@@ -72,26 +129,27 @@ public final class GithubApiImpl implements GithubApi {
             throws GithubApiException, IOException, InterruptedException {
 
         List<String> repositories = new ArrayList<>();
-        String url = String.format("https://api.github.com/orgs/%s/repos?per_page=100", organization);
+        String url = String.format("%s/orgs/%s/repos?per_page=100", apiUrl, organization);
 
         while (url != null) {
             HttpRequest request = createHttpRequestBuilder(url).build();
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = send("fetchAllRepositories", organization, request);
 
             if (response.statusCode() != HTTP_OK)
                 throw new RejectedOperationException(buildErrorMessage(response.statusCode(),
                         "fetch repositories", ORGANIZATION_PREFIX + organization + QUOTE_SUFFIX, response.body()));
 
-            JsonNode root = mapper.readTree(response.body());
+            JsonNode root = mapper.get().readTree(response.body());
             if (!root.isArray())
                 throw new UnexpectedFormatException(
                         "Expected a JSON array for repositories, got: " + root.getNodeType());
 
             for (JsonNode node : root) {
                 JsonNode nameNode = node.get("name");
-                if (nameNode == null || !nameNode.isTextual())
+                if (nameNode == null || !nameNode.isTextual() || nameNode.asText().isEmpty())
                     throw new UnexpectedFormatException(
-                            "Expected 'name' field of type string in each repository object, got: " + node.toString());
+                            "Expected a non-empty 'name' field of type string in each repository object, got: "
+                                    + node.toString());
                 repositories.add(nameNode.asText());
             }
 
@@ -105,12 +163,12 @@ public final class GithubApiImpl implements GithubApi {
             throws GithubApiException, IOException, InterruptedException {
 
         List<String> repositories = new ArrayList<>();
-        String url = String.format("https://api.github.com/orgs/%s/teams/%s/repos?per_page=100", organization,
+        String url = String.format("%s/orgs/%s/teams/%s/repos?per_page=100", apiUrl, organization,
                 teamSlug);
 
         while (url != null) {
             HttpRequest request = createHttpRequestBuilder(url).build();
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = send("fetchRepositoriesForTeam", organization, request);
 
             if (response.statusCode() != HTTP_OK)
                 throw new RejectedOperationException(buildErrorMessage(response.statusCode(),
@@ -119,17 +177,18 @@ public final class GithubApiImpl implements GithubApi {
                                 + QUOTE_SUFFIX,
                         response.body()));
 
-            JsonNode root = mapper.readTree(response.body());
+            JsonNode root = mapper.get().readTree(response.body());
             if (!root.isArray())
                 throw new UnexpectedFormatException(
                         "Expected a JSON array for the team's repositories, got: " + root.getNodeType());
 
             for (JsonNode node : root) {
                 JsonNode fullNameNode = node.get("full_name");
-                if (fullNameNode == null || !fullNameNode.isTextual())
+                if (fullNameNode == null || !fullNameNode.isTextual() || fullNameNode.asText().endsWith("/")
+                        || fullNameNode.asText().isEmpty())
                     throw new UnexpectedFormatException(
-                            "Expected 'full_name' field of type string in each repository object, got: "
-                                    + node.toString());
+                            "Expected a 'full_name' field of type string like 'organization/repository' in each "
+                                    + "repository object, got: " + node.toString());
                 repositories.add(fullNameNode.asText());
             }
 
@@ -142,14 +201,14 @@ public final class GithubApiImpl implements GithubApi {
     public void grantAccess(String organization, String repository, String teamSlug)
             throws GithubApiException, IOException, InterruptedException {
 
-        String url = String.format("https://api.github.com/orgs/%s/teams/%s/repos/%s/%s",
-                organization, teamSlug, organization, repository);
+        String url = String.format("%s/orgs/%s/teams/%s/repos/%s/%s",
+                apiUrl, organization, teamSlug, organization, repository);
         HttpRequest request = createHttpRequestBuilder(url)
                 .header("Content-Type", "application/json")
                 .PUT(ofString("{\"permission\":\"pull\"}"))
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send("grantAccess", organization, request);
         if (response.statusCode() != HTTP_NO_CONTENT)
             throw new RejectedOperationException(buildErrorMessage(response.statusCode(),
                     "grant access to repository '" + repository + "' for team '" + teamSlug + "'",
@@ -162,13 +221,13 @@ public final class GithubApiImpl implements GithubApi {
     public void revokeAccess(String organization, String repository, String teamSlug)
             throws GithubApiException, IOException, InterruptedException {
 
-        String url = String.format("https://api.github.com/orgs/%s/teams/%s/repos/%s/%s",
-                organization, teamSlug, organization, repository);
+        String url = String.format("%s/orgs/%s/teams/%s/repos/%s/%s",
+                apiUrl, organization, teamSlug, organization, repository);
         HttpRequest request = createHttpRequestBuilder(url)
                 .DELETE()
                 .build();
 
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = send("revokeAccess", organization, request);
         if (response.statusCode() != HTTP_NO_CONTENT)
             throw new RejectedOperationException(buildErrorMessage(response.statusCode(),
                     "revoke access to repository '" + repository + "' for team '" + teamSlug + "'",
@@ -179,16 +238,136 @@ public final class GithubApiImpl implements GithubApi {
 
     //# Auxiliary methods -----------------------------------
 
+    // All the requests to GitHub are sent through here, once the limit of the organization allows it. Each one is
+    // timed as a span named after the operation. It is also recorded as a JFR event and in the metrics. Responses
+    // that exceed a rate limit are thrown as RateLimitedException, whatever the operation
+    private HttpResponse<String> send(String operation, String organization, HttpRequest request)
+            throws GithubApiException, IOException, InterruptedException {
+        var httpClient = client.get();
+        long start = limits.acquire(organization, RequestPriority.isBackground());
+        var outcome = Outcome.FAILED;
+        var event = new GithubRequestEvent(operation, request.method(), request.uri());
+        event.begin();
+        var status = "error";
+        try (var span = Tracer.span(operation, request.method() + " " + request.uri().getPath())) {
+            var response = "GET".equals(request.method()) && hedging.isEnabled()
+                    ? sendHedged(httpClient, operation, request)
+                    : httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            status = Integer.toString(response.statusCode());
+            outcome = outcomeOf(response);
+            response.headers().firstValueAsLong("X-RateLimit-Remaining").ifPresent(Metrics::githubRateLimitRemaining);
+            if (event.isEnabled())
+                event.setResponse(response.statusCode(), response.body().getBytes(StandardCharsets.UTF_8).length);
+            if (outcome == Outcome.RATE_LIMITED)
+                throw new RateLimitedException(buildErrorMessage(HTTP_TOO_MANY_REQUESTS, operation, null,
+                        response.body()), retryAfter(response));
+            return response;
+        } finally {
+            limits.release(organization, operation, start, outcome);
+            event.commit();
+            Metrics.githubRequest(operation, status, System.nanoTime() - start);
+        }
+    }
+
+    // A server error says nothing about the load, so it does not change the limit
+    private Outcome outcomeOf(HttpResponse<String> response) {
+        if (isRateLimited(response))
+            return Outcome.RATE_LIMITED;
+        return response.statusCode() >= HTTP_SERVER_ERROR ? Outcome.FAILED : Outcome.SUCCEEDED;
+    }
+
+    // If the request takes longer than the hedging delay, the same request is sent again (if the budget allows
+    // it) and the first successful response wins. The other request is cancelled
+    private HttpResponse<String> sendHedged(HttpClient httpClient, String operation, HttpRequest request)
+            throws IOException, InterruptedException {
+
+        long start = System.nanoTime();
+        var primary = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<HttpResponse<String>> hedge = null;
+        try {
+            try {
+                return completed(operation, start, primary.get(hedging.delayNanos(operation), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                if (!hedging.tryHedge())
+                    return completed(operation, start, primary.get());
+            }
+
+            Metrics.githubHedgedRequest(operation);
+            hedge = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            return completed(operation, start, firstSuccessful(primary, hedge).get());
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause)
+                throw cause;
+            throw new IOException(e.getCause());
+        } finally {
+            primary.cancel(true);
+            if (hedge != null)
+                hedge.cancel(true);
+        }
+    }
+
+    private HttpResponse<String> completed(String operation, long start, HttpResponse<String> response) {
+        hedging.completed(operation, System.nanoTime() - start);
+        return response;
+    }
+
+    // Completes with the first response or, if both requests fail, with the last error
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        var result = new CompletableFuture<T>();
+        var failures = new AtomicInteger();
+        for (var future : List.of(first, second))
+            future.whenComplete((value, error) -> {
+                if (error == null)
+                    result.complete(value);
+                else if (failures.incrementAndGet() == 2)
+                    result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            });
+        return result;
+    }
+
+    // A 403 is a rate limit (instead of a lack of permissions) if GitHub says when to try again, if the primary
+    // limit is exhausted or if the message says so (the secondary limits)
+    private boolean isRateLimited(HttpResponse<String> response) {
+        if (response.statusCode() == HTTP_TOO_MANY_REQUESTS)
+            return true;
+        if (response.statusCode() != HTTP_FORBIDDEN)
+            return false;
+
+        var headers = response.headers();
+        return headers.firstValue("Retry-After").isPresent()
+                || headers.firstValueAsLong("X-RateLimit-Remaining").orElse(-1) == 0
+                || parseGithubErrorMessage(response.body()).orElse("").toLowerCase().contains("rate limit");
+    }
+
+    private static Optional<Duration> retryAfter(HttpResponse<String> response) {
+        var headers = response.headers();
+        try {
+            var seconds = headers.firstValueAsLong("Retry-After");
+            if (seconds.isPresent())
+                return Optional.of(Duration.ofSeconds(seconds.getAsLong()));
+
+            var reset = headers.firstValueAsLong("X-RateLimit-Reset"); // Epoch seconds
+            if (reset.isPresent())
+                return Optional.of(Duration.ofSeconds(
+                        Math.max(0, reset.getAsLong() - System.currentTimeMillis() / 1000)));
+        } catch (NumberFormatException e) {
+            // An HTTP date instead of seconds. GitHub does not send them
+        }
+        return Optional.empty();
+    }
+
     private Builder createHttpRequestBuilder(String url) {
         return HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(requestTimeout)
                 .header("Authorization", "Bearer " + token)
                 .header("Accept", "application/vnd.github+json");
     }
 
     Optional<String> parseGithubErrorMessage(String responseBody) {
         try {
-            JsonNode root = mapper.readTree(responseBody);
+            JsonNode root = mapper.get().readTree(responseBody);
             JsonNode messageNode = root.get("message");
             if (messageNode != null && messageNode.isTextual())
                 return Optional.of(messageNode.asText());
@@ -207,6 +386,7 @@ public final class GithubApiImpl implements GithubApi {
             case 403 -> String.format("Access forbidden. You don't have permission to %s.%s", action, details);
             case 404 -> String.format("%s does not exist.%s", resourceInfo, details);
             case 422 -> String.format("Validation failed for %s.%s", action, details);
+            case 429 -> String.format("GitHub rate limit exceeded (%s). Try again later.%s", action, details);
             default -> String.format("Failed to %s. Status: %d.%s", action, statusCode, details);
         };
     }
@@ -228,4 +408,35 @@ public final class GithubApiImpl implements GithubApi {
         return null;
     }
 
+    /**
+     * Value created on its first use. Safe to use from several threads: the value is only created once.
+     * The creation is timed as a span.
+     *
+     * @param <T> the type of the value
+     */
+    private static final class Lazy<T> {
+
+        private final String spanName;
+        private final Supplier<T> factory;
+        private volatile T value;
+
+        Lazy(String spanName, Supplier<T> factory) {
+            this.spanName = spanName;
+            this.factory = factory;
+        }
+
+        T get() {
+            T result = value;
+            if (result == null) {
+                synchronized (this) {
+                    if (value == null)
+                        try (var span = Tracer.span(spanName)) {
+                            value = factory.get();
+                        }
+                    result = value;
+                }
+            }
+            return result;
+        }
+    }
 }
@@ -0,0 +1,118 @@
+package es.uniovi.raul.solutions.github;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides when a GET request that is taking too long is sent again (a hedged request), so an occasional slow
+ * response from GitHub does not stall the whole operation.
+ *
+ * A request is hedged when it takes longer than a percentile of the latencies of the last requests of the same
+ * operation (or, until there are enough of them, than an initial delay). The hedges are limited by a budget: each
+ * request earns a fraction of a hedge, so they never add more than that fraction of extra requests (plus the
+ * initial budget).
+ */
+final class HedgingPolicy {
+
+    /**
+     * Hedges the requests slower than the 95th percentile, adding at most 5% of requests. Without enough
+     * latencies, a request is only hedged when it is clearly stalled: the first ones pay for the connection and
+     * warming up the client, and sending them again would only pay that twice.
+     */
+    static final HedgingPolicy DEFAULT = new HedgingPolicy(0.95, Duration.ofSeconds(5), 0.05, 1);
+
+    /**
+     * Never hedges.
+     */
+    static final HedgingPolicy NONE = new HedgingPolicy(0.95, Duration.ofSeconds(1), 0, 0);
+
+    private static final int SAMPLES = 64;
+    private static final int MIN_SAMPLES = 10;
+    private static final long MIN_DELAY_NANOS = Duration.ofMillis(50).toNanos();
+
+    private final double percentile;
+    private final long initialDelayNanos;
+    private final double budgetPerRequest;
+    private final double maxBudget;
+    private final Map<String, Latencies> latencies = new ConcurrentHashMap<>();
+    private double budget; // Guarded by this
+
+    /**
+     * Creates a policy.
+     *
+     * @param percentile the latency percentile (between 0 and 1) after which a request is hedged
+     * @param initialDelay the delay after which a request is hedged while there are few latencies of its operation
+     * @param budgetPerRequest the fraction of a hedge earned with each request
+     * @param initialBudget the hedges that can be sent before earning any
+     */
+    HedgingPolicy(double percentile, Duration initialDelay, double budgetPerRequest, double initialBudget) {
+        if (percentile <= 0 || percentile > 1)
+            throw new IllegalArgumentException("The percentile must be between 0 and 1.");
+        if (budgetPerRequest < 0 || initialBudget < 0)
+            throw new IllegalArgumentException("The budget cannot be negative.");
+
+        this.percentile = percentile;
+        this.initialDelayNanos = initialDelay.toNanos();
+        this.budgetPerRequest = budgetPerRequest;
+        this.maxBudget = Math.max(1, initialBudget);
+        this.budget = initialBudget;
+    }
+
+    boolean isEnabled() {
+        return budgetPerRequest > 0 || budget > 0;
+    }
+
+    /**
+     * How long to wait for a request of the operation before hedging it.
+     */
+    long delayNanos(String operation) {
+        var operationLatencies = latencies.get(operation);
+        if (operationLatencies == null)
+            return initialDelayNanos;
+        return operationLatencies.percentile(percentile).orElse(initialDelayNanos);
+    }
+
+    /**
+     * Records the latency of a request, which also earns its part of the budget.
+     */
+    void completed(String operation, long latencyNanos) {
+        latencies.computeIfAbsent(operation, key -> new Latencies()).add(latencyNanos);
+        synchronized (this) {
+            budget = Math.min(maxBudget, budget + budgetPerRequest);
+        }
+    }
+
+    /**
+     * Takes a hedge from the budget, if there is one left.
+     */
+    synchronized boolean tryHedge() {
+        if (budget < 1)
+            return false;
+        budget--;
+        return true;
+    }
+
+    // The last SAMPLES latencies of an operation
+    private static final class Latencies {
+
+        private final long[] samples = new long[SAMPLES];
+        private int count;
+
+        synchronized void add(long latencyNanos) {
+            samples[count % SAMPLES] = latencyNanos;
+            count++;
+        }
+
+        synchronized OptionalLong percentile(double percentile) {
+            int size = Math.min(count, SAMPLES);
+            if (size < MIN_SAMPLES)
+                return OptionalLong.empty();
+
+            var sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = Math.min(size - 1, (int) Math.ceil(percentile * size) - 1);
+            return OptionalLong.of(Math.max(MIN_DELAY_NANOS, sorted[index]));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package es.uniovi.raul.solutions.github;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+import java.time.*;
+import java.util.List;
+
+import es.uniovi.raul.solutions.audit.*;
+import es.uniovi.raul.solutions.audit.AuditEntry.Action;
+
+/**
+ * A decorator for {@link GithubApi} that records every grant and revoke (successful or not) in an
+ * {@link AuditJournal}. Read operations are not recorded.
+ *
+ * If the journal cannot be written, a warning is printed but the operation is not affected.
+ */
+public final class JournalingGithubApi implements GithubApi {
+
+    private final GithubApi delegate;
+    private final AuditJournal journal;
+    private final Clock clock;
+
+    public JournalingGithubApi(GithubApi delegate, AuditJournal journal) {
+        this(delegate, journal, Clock.systemUTC());
+    }
+
+    public JournalingGithubApi(GithubApi delegate, AuditJournal journal, Clock clock) {
+        notNull(delegate, journal, clock);
+
+        this.delegate = delegate;
+        this.journal = journal;
+        this.clock = clock;
+    }
+
+    @Override
+    public List<Team> fetchTeams(String organization)
+            throws GithubApiException, IOException, InterruptedException {
+        return delegate.fetchTeams(organization);
+    }
+
+    @Override
+    public List<String> fetchAllRepositories(String organization)
+            throws GithubApiException, IOException, InterruptedException {
+        return delegate.fetchAllRepositories(organization);
+    }
+
+    @Override
+    public List<String> fetchRepositoriesForTeam(String organization, String teamSlug)
+            throws GithubApiException, IOException, InterruptedException {
+        return delegate.fetchRepositoriesForTeam(organization, teamSlug);
+    }
+
+    @Override
+    public void grantAccess(String organization, String repository, String teamSlug)
+            throws GithubApiException, IOException, InterruptedException {
+        long start = System.nanoTime();
+        boolean successful = false;
+        try {
+            delegate.grantAccess(organization, repository, teamSlug);
+            successful = true;
+        } finally {
+            appendToJournal(Action.GRANT, organization, repository, teamSlug, successful, start);
+        }
+    }
+
+    @Override
+    public void revokeAccess(String organization, String repository, String teamSlug)
+            throws GithubApiException, IOException, InterruptedException {
+        long start = System.nanoTime();
+        boolean successful = false;
+        try {
+            delegate.revokeAccess(organization, repository, teamSlug);
+            successful = true;
+        } finally {
+            appendToJournal(Action.REVOKE, organization, repository, teamSlug, successful, start);
+        }
+    }
+
+    @Override
+    public boolean isDryRun() {
+        return delegate.isDryRun();
+    }
+
+    private void appendToJournal(Action action, String organization, String repository, String teamSlug,
+            boolean successful, long start) {
+        var latency = Duration.ofNanos(System.nanoTime() - start);
+        try {
+            journal.append(new AuditEntry(clock.instant(), organization, teamSlug, repository, action, successful,
+                    latency));
+        } catch (IOException | RuntimeException e) {
+            System.err.printf("[Warning] The change could not be written to the audit journal: %s%n", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package es.uniovi.raul.solutions.github;
+
+/**
+ * The priority of the requests to GitHub made by the current thread.
+ *
+ * The requests of background work (such as loading the groups before they are needed) use at most half of the
+ * requests allowed at the same time, and they let the requests that someone is waiting for go first. So the
+ * background work does not delay what the user is doing.
+ */
+public final class RequestPriority {
+
+    private static final ThreadLocal<Boolean> BACKGROUND = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * Marks the requests of the current thread as background ones, or as normal ones again. Threads that only do
+     * background work can be marked once when they start.
+     */
+    public static void setBackground(boolean background) {
+        BACKGROUND.set(background);
+    }
+
+    static boolean isBackground() {
+        return BACKGROUND.get();
+    }
+}
@@ -0,0 +1,275 @@
+package es.uniovi.raul.solutions.github;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A decorator for {@link GithubApi} that holds the grants and revokes for a while before sending them, so a change
+ * that is undone meanwhile (a solution shown by mistake and hidden again) is not sent at all.
+ *
+ * The changes of the same team and repository are collapsed to their net effect: a grant followed by a revoke (or
+ * the other way round) cancels both, and a repeated change is sent once. The changes that have waited for the
+ * window are sent concurrently. If they fail because the connection or GitHub is not available (a network error
+ * or a rate limit), they are kept and sent again later, waiting longer after each failure. As a failed change may
+ * have been applied anyway, undoing it later sends the undoing change instead of cancelling both.
+ *
+ * A grant or revoke returns before it is sent, so the changes that GitHub rejects are reported to the caller with
+ * the next grant or revoke, which is not made, or else when it is closed.
+ *
+ * The repositories of a team include its pending changes (except in a dry run, which makes none), so the held
+ * changes are not undone by reading the state from GitHub. Closing it sends the pending changes right away. As the
+ * changes are not applied when the calls return, it must not be used where they are recorded as done afterwards (as
+ * the intent log of a sync does).
+ */
+public final class WriteBehindGithubApi implements GithubApi, AutoCloseable {
+
+    public static final Duration DEFAULT_WINDOW = Duration.ofSeconds(2);
+
+    private static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final long MAX_RETRY_DELAY_NANOS = Duration.ofSeconds(30).toNanos();
+    private static final long MIN_TICK_NANOS = Duration.ofMillis(10).toNanos();
+    private static final int CLOSE_ATTEMPTS = 3;
+
+    private final GithubApi delegate;
+    private final long windowNanos;
+    private final long retryDelayNanos;
+    private final Map<Change, Pending> pending = new LinkedHashMap<>(); // Guarded by this
+    private final Map<Change, Operation> sending = new HashMap<>(); // Guarded by this
+    private final List<String> failures = new ArrayList<>(); // Not reported yet, guarded by this
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    public WriteBehindGithubApi(GithubApi delegate, Duration window) {
+        this(delegate, window, DEFAULT_RETRY_DELAY);
+    }
+
+    WriteBehindGithubApi(GithubApi delegate, Duration window, Duration retryDelay) {
+        notNull(delegate, window, retryDelay);
+        if (window.isNegative() || retryDelay.isNegative())
+            throw new IllegalArgumentException("The window and the retry delay cannot be negative.");
+
+        this.delegate = delegate;
+        this.windowNanos = window.toNanos();
+        this.retryDelayNanos = retryDelay.toNanos();
+        this.flusher = Thread.ofVirtual().name("write-behind").start(this::flushPeriodically);
+    }
+
+    @Override
+    public List<Team> fetchTeams(String organization)
+            throws GithubApiException, IOException, InterruptedException {
+        return delegate.fetchTeams(organization);
+    }
+
+    @Override
+    public List<String> fetchAllRepositories(String organization)
+            throws GithubApiException, IOException, InterruptedException {
+        return delegate.fetchAllRepositories(organization);
+    }
+
+    @Override
+    public List<String> fetchRepositoriesForTeam(String organization, String teamSlug)
+            throws GithubApiException, IOException, InterruptedException {
+
+        var repositories = new ArrayList<>(delegate.fetchRepositoriesForTeam(organization, teamSlug));
+        if (delegate.isDryRun())
+            return repositories; // The changes are not made, so they are not shown either
+        synchronized (this) {
+            // The changes being sent may not be in GitHub yet. The pending ones are newer
+            sending.forEach((change, operation) -> overlay(repositories, organization, teamSlug, change, operation));
+            pending.forEach((change, held) -> overlay(repositories, organization, teamSlug, change,
+                    held.operation()));
+        }
+        return repositories;
+    }
+
+    @Override
+    public void grantAccess(String organization, String repository, String teamSlug)
+            throws RejectedOperationException {
+        hold(new Change(organization, repository, teamSlug), Operation.GRANT);
+    }
+
+    @Override
+    public void revokeAccess(String organization, String repository, String teamSlug)
+            throws RejectedOperationException {
+        hold(new Change(organization, repository, teamSlug), Operation.REVOKE);
+    }
+
+    @Override
+    public boolean isDryRun() {
+        return delegate.isDryRun();
+    }
+
+    /**
+     * The number of changes that have not been applied yet (held or being sent).
+     */
+    synchronized int pendingChanges() {
+        return pending.size() + sending.size();
+    }
+
+    /**
+     * Sends the pending changes right away and waits for them.
+     *
+     * @throws GithubApiException if some changes could not be sent after a few attempts or were rejected (and have
+     *             not been reported yet). Its message lists them
+     */
+    @Override
+    public void close() throws GithubApiException, InterruptedException {
+        if (closed)
+            return;
+
+        closed = true;
+        flusher.interrupt();
+        flusher.join();
+
+        for (int attempt = 0; attempt < CLOSE_ATTEMPTS && pendingChanges() > 0; attempt++) {
+            if (attempt > 0)
+                TimeUnit.NANOSECONDS.sleep(retryDelayNanos);
+            flush(true);
+        }
+
+        synchronized (this) {
+            var unmade = new ArrayList<String>();
+            pending.forEach((change, held) -> unmade.add(change.describe(held.operation()) + ": not sent"));
+            unmade.addAll(failures);
+            failures.clear();
+            if (!unmade.isEmpty())
+                throw new GithubApiException(String.format("%d changes could not be made in GitHub:%n  - %s",
+                        unmade.size(), String.join(String.format("%n  - "), unmade)));
+        }
+    }
+
+    private synchronized void hold(Change change, Operation operation) throws RejectedOperationException {
+        if (closed)
+            throw new IllegalStateException("The changes are no longer accepted: it is closed.");
+
+        if (!failures.isEmpty()) {
+            var message = String.format("These earlier changes were rejected by GitHub (refresh to see the actual "
+                    + "access), so this one was not made:%n  - %s", String.join(String.format("%n  - "), failures));
+            failures.clear();
+            throw new RejectedOperationException(message);
+        }
+
+        long now = System.nanoTime();
+        var held = pending.get(change);
+        if (held == null)
+            pending.put(change, new Pending(operation, now, 0, now));
+        else if (held.operation() != operation && held.attempts() == 0)
+            pending.remove(change); // Each one undoes the other
+        else if (held.operation() != operation)
+            pending.put(change, new Pending(operation, now, 0, now)); // The failed one may have been applied
+    }
+
+    private static void overlay(List<String> repositories, String organization, String teamSlug, Change change,
+            Operation operation) {
+
+        if (!change.organization().equals(organization) || !change.teamSlug().equals(teamSlug))
+            return;
+
+        var fullName = organization + "/" + change.repository();
+        if (operation == Operation.REVOKE)
+            repositories.remove(fullName);
+        else if (!repositories.contains(fullName))
+            repositories.add(fullName);
+    }
+
+    private void flushPeriodically() {
+        long tick = Math.max(MIN_TICK_NANOS, windowNanos / 4);
+        try {
+            while (!closed) {
+                TimeUnit.NANOSECONDS.sleep(tick);
+                flush(false);
+            }
+        } catch (InterruptedException e) {
+            // Closed: the pending changes are sent by close()
+        }
+    }
+
+    // Sends, concurrently, the changes that have waited for the window and their retry delay (or all of them),
+    // and waits for them
+    private void flush(boolean all) throws InterruptedException {
+        var due = takeDue(all);
+        if (due.isEmpty())
+            return;
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            due.forEach((change, held) -> executor.submit(() -> send(change, held)));
+        }
+    }
+
+    // A change is not sent while the previous one of the same team and repository is still being sent
+    private synchronized Map<Change, Pending> takeDue(boolean all) {
+        long now = System.nanoTime();
+        var due = new LinkedHashMap<Change, Pending>();
+        for (var iterator = pending.entrySet().iterator(); iterator.hasNext();) {
+            var entry = iterator.next();
+            var held = entry.getValue();
+            boolean ready = all || now - held.heldSince() >= windowNanos && now - held.retryAt() >= 0;
+            if (ready && !sending.containsKey(entry.getKey())) {
+                due.put(entry.getKey(), held);
+                sending.put(entry.getKey(), held.operation());
+                iterator.remove();
+            }
+        }
+        return due;
+    }
+
+    private void send(Change change, Pending held) {
+        try {
+            if (held.operation() == Operation.GRANT)
+                delegate.grantAccess(change.organization(), change.repository(), change.teamSlug());
+            else
+                delegate.revokeAccess(change.organization(), change.repository(), change.teamSlug());
+            sent(change);
+
+        } catch (IOException | RateLimitedException e) {
+            retryLater(change, held, e instanceof RateLimitedException limited ? limited.retryAfter() : Optional.empty());
+        } catch (InterruptedException e) {
+            retryLater(change, held, Optional.of(Duration.ZERO)); // Closing: it is sent again right away
+        } catch (GithubApiException | RuntimeException e) {
+            rejected(change, held, e);
+        }
+    }
+
+    private synchronized void sent(Change change) {
+        sending.remove(change);
+    }
+
+    private synchronized void rejected(Change change, Pending held, Exception e) {
+        sending.remove(change);
+        failures.add(change.describe(held.operation()) + ": " + e.getMessage());
+    }
+
+    // If the change was made again or undone meanwhile, the newer one is kept: the failed one may have been applied
+    // anyway, so it has to be undone
+    private synchronized void retryLater(Change change, Pending held, Optional<Duration> retryAfter) {
+        sending.remove(change);
+        if (pending.containsKey(change))
+            return;
+
+        long delay = retryAfter.map(Duration::toNanos)
+                .orElse(Math.min(MAX_RETRY_DELAY_NANOS, retryDelayNanos << Math.min(held.attempts(), 20)));
+        pending.put(change, new Pending(held.operation(), held.heldSince(), held.attempts() + 1,
+                System.nanoTime() + delay));
+    }
+
+    private enum Operation {
+        GRANT, REVOKE
+    }
+
+    private record Change(String organization, String repository, String teamSlug) {
+
+        String describe(Operation operation) {
+            return operation == Operation.GRANT
+                    ? String.format("grant team '%s' access to '%s/%s'", teamSlug, organization, repository)
+                    : String.format("revoke team '%s' access to '%s/%s'", teamSlug, organization, repository);
+        }
+    }
+
+    // retryAt is the System.nanoTime() after which it can be sent
+    private record Pending(Operation operation, long heldSince, int attempts, long retryAt) {
+    }
+}
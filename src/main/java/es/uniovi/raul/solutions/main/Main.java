@@ -4,9 +4,15 @@ import static es.uniovi.raul.solutions.cli.Console.*;
 import static es.uniovi.raul.solutions.course.naming.TeamNaming.*;
 
 import java.io.*;
-import java.time.Clock;
+import java.nio.file.Path;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.*;
 
+import es.uniovi.raul.solutions.audit.AuditJournal;
+import es.uniovi.raul.solutions.batch.*;
+import es.uniovi.raul.solutions.batch.DesiredStateLoader.InvalidDesiredState;
 import es.uniovi.raul.solutions.cli.*;
 import es.uniovi.raul.solutions.cli.Console;
 import es.uniovi.raul.solutions.course.*;
@@ -14,8 +20,10 @@ import es.uniovi.raul.solutions.course.naming.*;
 import es.uniovi.raul.solutions.github.*;
 import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
 import es.uniovi.raul.solutions.main.agents.*;
+import es.uniovi.raul.solutions.monitoring.*;
 import es.uniovi.raul.solutions.schedule.ScheduleLoader;
 import es.uniovi.raul.solutions.schedule.ScheduleLoader.InvalidScheduleFormat;
+import es.uniovi.raul.solutions.server.CourseServer;
 
 /**
  * Entry point for the application.
@@ -24,16 +32,21 @@ public class Main {
 
     public static void main(String[] args) {
 
+        long start = System.nanoTime();
         Optional<Arguments> argumentsOpt = ArgumentsParser.parse(args);
         if (argumentsOpt.isEmpty()) {
             System.exit(1);
             return;
         }
+        var arguments = argumentsOpt.get();
+        if (arguments.timings || arguments.traceFile != null)
+            Tracer.enable();
 
         int exitCode = 0;
-        try {
+        try (var span = Tracer.span("solutions", null, start)) {
 
-            exitCode = run(argumentsOpt.get());
+            Tracer.span("parseArguments", null, start).close();
+            exitCode = run(arguments);
 
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -43,55 +56,216 @@ public class Main {
             printError(e.getMessage());
             exitCode = 1;
         }
+
+        reportTimings(arguments);
         System.exit(exitCode);
     }
 
-    static int run(Arguments arguments) throws IOException, InvalidScheduleFormat, GithubApiException,
-            InterruptedException {
+    static int run(Arguments arguments) throws IOException, InvalidScheduleFormat, InvalidDesiredState,
+            GithubApiException, InterruptedException {
 
-        final var schedule = loadSchedule(arguments.scheduleFile);
+        if (arguments.history != null) {
+            printHistory(Path.of(arguments.journalFile), arguments.history);
+            return 0;
+        }
 
-        System.out.print("Connecting with Github... ");
-        GithubApi connection = new GithubApiImpl(arguments.token);
-        if (arguments.dryRun) {
-            connection = new DryRunGithubApi(connection);
-            System.out.println("=== DRY RUN MODE - No changes will be made ===\n");
+        // A dry run makes no grants or revokes, so it has no journal (a null resource is not closed)
+        try (var journal = arguments.dryRun ? null : new AuditJournal(Path.of(arguments.journalFile))) {
+            final GithubApi github = new CoalescingGithubApi(new GithubApiImpl(arguments.token, arguments.apiUrl));
+            final GithubApi connection = journal == null ? new DryRunGithubApi(github)
+                    : new JournalingGithubApi(github, journal);
+            if (arguments.writeBehindSeconds == null)
+                return run(arguments, connection);
+
+            // Closed before the journal, as it still sends the pending changes. Also when stopped with Ctrl+C
+            try (var writeBehind = new WriteBehindGithubApi(connection,
+                    Duration.ofSeconds(arguments.writeBehindSeconds))) {
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> closeOnExit(writeBehind)));
+                return run(arguments, writeBehind);
+            }
         }
-        System.out.println("done.");
+    }
 
-        System.out.println("Fetching groups and solutions... ");
-        var course = createCourse(arguments, schedule, connection);
-        System.out.println("done.\n");
+    private static int run(Arguments arguments, GithubApi connection) throws IOException, InvalidScheduleFormat,
+            InvalidDesiredState, GithubApiException, InterruptedException {
+
+        var course = loadCourse(arguments, connection);
 
         // If there are no groups or solutions, there's nothing to do. Print an informative message and exit.
         if (course.groups().isEmpty()) {
             printWarning("No groups found in the organization. Exiting.");
             return 2;
         }
-        if (course.solutions().isEmpty()) {
+        if (!course.hasSolutions()) {
             printWarning("No solutions found in the organization. Exiting.");
             return 2;
         }
 
-        Prompter prompter = Console::confirmation;
-        var agent = new AutoGrantAgent(Clock.systemDefaultZone(), prompter);
-        if (agent.tryAutomaticSelection(course)) {
-            System.out.println("Access granted.");
+        if (arguments.matrix != null) {
+            printMatrix(course, arguments.matrix);
             return 0;
         }
 
-        var manualAgent = new ManualGrantAgent(prompter);
-        manualAgent.doManualSelection(course);
+        if (arguments.servePort != null) {
+            serve(course, arguments.servePort);
+            return 0;
+        }
+
+        Prompter prompter = Console::confirmation;
+        if (arguments.resume) {
+            var syncAgent = new SyncAgent(prompter, new BatchRunner(), Path.of(arguments.intentLogFile),
+                    arguments.dryRun);
+            return syncAgent.resume(course) ? 0 : 1;
+        }
+        if (arguments.syncFile != null) {
+            var desired = DesiredStateLoader.load(arguments.syncFile);
+            var syncAgent = new SyncAgent(prompter, new BatchRunner(), Path.of(arguments.intentLogFile),
+                    arguments.dryRun);
+            return syncAgent.sync(course, desired) ? 0 : 1;
+        }
+
+        var clock = Clock.systemDefaultZone();
+        try (var prefetcher = new PrefetchScheduler(Concurrently.DEFAULT_PARALLELISM)) {
+            var now = LocalDateTime.now(clock);
+            prefetcher.start(course.groups(), now.getDayOfWeek().toString().toLowerCase(), now.toLocalTime());
+
+            if (arguments.session) {
+                var input = new BufferedReader(new InputStreamReader(System.in));
+                new SessionAgent(input, System.out).run(course);
+                return 0;
+            }
+
+            var agent = new AutoGrantAgent(clock, prompter);
+            if (agent.tryAutomaticSelection(course)) {
+                System.out.println("Access granted.");
+                return 0;
+            }
+
+            var manualAgent = new ManualGrantAgent(prompter);
+            manualAgent.doManualSelection(course);
+        }
 
         return 0;
     }
 
-    private static Course createCourse(Arguments arguments, final Map<String, Schedule> schedule, GithubApi connection)
+    private static void closeOnExit(WriteBehindGithubApi writeBehind) {
+        try {
+            writeBehind.close();
+        } catch (GithubApiException e) {
+            printError(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void printHistory(Path journalFile, String filter) throws IOException {
+        var entries = AuditJournal.read(journalFile).stream()
+                .filter(entry -> entry.organization().contains(filter) || entry.group().contains(filter)
+                        || entry.solution().contains(filter))
+                .toList();
+        if (entries.isEmpty()) {
+            System.out.printf("No grants or revokes were found in '%s'.%n", journalFile);
+            return;
+        }
+
+        var time = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+        for (var entry : entries)
+            System.out.printf("%s  %-6s  %-20s  %-20s  %-30s  %-6s  %5d ms%n", time.format(entry.time()),
+                    entry.action(), entry.organization(), entry.group(), entry.solution(),
+                    entry.successful() ? "ok" : "FAILED", entry.latency().toMillis());
+    }
+
+    private static void reportTimings(Arguments arguments) {
+        if (arguments.timings)
+            System.err.print(System.lineSeparator() + TimingsReport.format(Tracer.finishedSpans()));
+
+        if (arguments.traceFile != null) {
+            try {
+                ChromeTrace.write(Tracer.finishedSpans(), Path.of(arguments.traceFile));
+            } catch (IOException e) {
+                printError("The trace file could not be written: " + e.getMessage());
+            }
+        }
+    }
+
+    // The teams and the repositories of all the organizations are fetched from GitHub, concurrently, while the
+    // schedule is parsed. With several organizations, their courses are combined in one. The load event of each
+    // organization starts when its requests are sent
+    private static Course loadCourse(Arguments arguments, GithubApi connection) throws IOException,
+            InvalidScheduleFormat, GithubApiException, InterruptedException {
+
+        try (var span = Tracer.span("loadCourse");
+                var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                var teams = new LinkedHashMap<String, Future<List<Team>>>();
+                var repositories = new HashMap<String, Future<List<String>>>();
+                var events = new HashMap<String, CourseLoadEvent>();
+                for (var organization : arguments.organizations) {
+                    var event = new CourseLoadEvent(organization);
+                    event.begin();
+                    events.put(organization, event);
+                    teams.put(organization, executor.submit(() -> connection.fetchTeams(organization)));
+                    repositories.put(organization, executor.submit(() -> connection.fetchAllRepositories(organization)));
+                }
+
+                final var schedule = loadSchedule(arguments.scheduleFile);
+
+                System.out.print("Connecting with Github... ");
+                if (arguments.dryRun)
+                    System.out.println("=== DRY RUN MODE - No changes will be made ===\n");
+                System.out.println("done.");
+
+                System.out.println("Fetching groups and solutions... ");
+                boolean qualifyGroups = arguments.organizations.size() > 1;
+                var courses = new LinkedHashMap<String, Course>();
+                for (var organization : arguments.organizations) {
+                    var course = createCourse(arguments, organization, qualifyGroups, schedule, connection,
+                            Concurrently.await(teams.get(organization)),
+                            Concurrently.await(repositories.get(organization)));
+                    var event = events.get(organization);
+                    event.setLoaded(course.groups().size(), course.solutions().size());
+                    event.commit();
+                    courses.put(organization, course);
+                }
+                System.out.println("done.\n");
+
+                return qualifyGroups ? Course.combine(courses) : courses.values().iterator().next();
+            } finally {
+                executor.shutdownNow(); // Do not wait for GitHub if the schedule could not be loaded
+            }
+        }
+    }
+
+    private static void printMatrix(Course course, Arguments.MatrixFormat format)
             throws GithubApiException, IOException, InterruptedException {
 
+        System.out.printf("Loading the solutions of %d groups... ", course.groups().size());
+        AccessMatrix matrix;
+        try (var span = Tracer.span("accessMatrix")) {
+            matrix = course.accessMatrix();
+        }
+        System.out.println("done.\n");
+
+        System.out.print(format == Arguments.MatrixFormat.CSV ? matrix.toCsv() : matrix.toTable());
+    }
+
+    private static void serve(Course course, int port) throws IOException, InterruptedException {
+
+        var server = new CourseServer(course, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+        System.out.printf("Serving the course on http://localhost:%d (press Ctrl+C to stop)%n", server.port());
+        System.out.printf("Grants and revokes need the header 'Authorization: Bearer %s'%n", server.token());
+
+        new CountDownLatch(1).await(); // Until the process is stopped
+    }
+
+    private static Course createCourse(Arguments arguments, String organization, boolean qualifyGroups,
+            final Map<String, Schedule> schedule, GithubApi connection, List<Team> allTeams, List<String> allRepos) {
+
         var solutionsDetector = new RegexSolutionDetector(arguments.solutionRegex);
-        var groups = fetchGroups(arguments.organization, connection, schedule, solutionsDetector);
-        var solutions = fetchSolutions(arguments.organization, connection, solutionsDetector);
+        var groups = toGroups(organization, qualifyGroups, allTeams, connection, schedule, solutionsDetector);
+        var solutions = toSolutions(organization, allRepos, solutionsDetector);
         return new Course(groups, solutions);
     }
 
@@ -119,11 +293,11 @@ public class Main {
         return schedules;
     }
 
-    private static List<Group> fetchGroups(String organizationName, GithubApi githubApi,
-            Map<String, Schedule> schedule, SolutionsDetectionStrategy solutionsDetector)
-            throws GithubApiException, IOException, InterruptedException {
+    // With several organizations, the groups are named "<organization>:<group>", so they can be told apart. Their
+    // schedule is the one of that name or, if there is none, the one of the group
+    private static List<Group> toGroups(String organizationName, boolean qualifyGroups, List<Team> allTeams,
+            GithubApi githubApi, Map<String, Schedule> schedule, SolutionsDetectionStrategy solutionsDetector) {
 
-        List<Team> allTeams = githubApi.fetchTeams(organizationName);
         System.out.printf("%d teams found in the organization '%s'.%n", allTeams.size(), organizationName);
 
         List<Team> filteredTeams = allTeams.stream()
@@ -134,19 +308,17 @@ public class Main {
         List<Group> groupTeams = new ArrayList<>();
         for (var team : filteredTeams) {
             var group = toGroup(team.displayName());
-            groupTeams.add(
-                    new Group(group, team.slug(), Optional.ofNullable(schedule.get(group)),
-                            githubApi, organizationName, solutionsDetector));
+            var name = qualifyGroups ? organizationName + ":" + group : group;
+            var groupSchedule = Optional.ofNullable(schedule.getOrDefault(name, schedule.get(group)));
+            groupTeams.add(new Group(name, team.slug(), groupSchedule, githubApi, organizationName, solutionsDetector));
         }
 
         return groupTeams;
     }
 
-    private static List<String> fetchSolutions(String organizationName, GithubApi githubApi,
-            SolutionsDetectionStrategy solutionsDetector)
-            throws GithubApiException, IOException, InterruptedException {
+    private static List<String> toSolutions(String organizationName, List<String> allRepos,
+            SolutionsDetectionStrategy solutionsDetector) {
 
-        var allRepos = githubApi.fetchAllRepositories(organizationName);
         System.out.printf("%d repositories found in the organization '%s'.%n", allRepos.size(), organizationName);
 
         var solutionRepos = allRepos.stream()
@@ -6,6 +6,7 @@ import java.util.*;
 
 import es.uniovi.raul.solutions.course.*;
 import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.monitoring.Tracer;
 
 /**
  * Automatically tries to guess:
@@ -35,7 +36,10 @@ public final class AutoGrantAgent {
         if (guessedGroupOpt.isEmpty())
             return false;
 
-        var guessedSolutionOpt = guessSolution(guessedGroupOpt.get(), course.solutions());
+        Optional<String> guessedSolutionOpt;
+        try (var span = Tracer.span("guessSolution", guessedGroupOpt.get().name())) {
+            guessedSolutionOpt = guessSolution(course, guessedGroupOpt.get());
+        }
         if (guessedSolutionOpt.isEmpty())
             return false;
 
@@ -61,14 +65,13 @@ public final class AutoGrantAgent {
         return matching.size() == 1 ? Optional.of(matching.get(0)) : Optional.empty();
     }
 
-    public Optional<String> guessSolution(Group group, List<String> allSolutions)
+    /**
+     * The first solution, in release order, that the group cannot access yet.
+     */
+    public Optional<String> guessSolution(Course course, Group group)
             throws GithubApiException, IOException, InterruptedException {
 
-        for (String solution : allSolutions.stream().sorted().toList())
-            if (!group.hasAccessTo(solution))
-                return Optional.of(solution);
-
-        return Optional.empty();
+        return course.nextHiddenSolution(group);
     }
 
     private String today() {
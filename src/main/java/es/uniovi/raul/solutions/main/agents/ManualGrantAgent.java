@@ -4,75 +4,147 @@ import static es.uniovi.raul.solutions.cli.selector.OptionsSelector.*;
 import static java.lang.String.*;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
 
-import es.uniovi.raul.solutions.course.Course;
-import es.uniovi.raul.solutions.course.Group;
+import es.uniovi.raul.solutions.batch.*;
+import es.uniovi.raul.solutions.batch.AccessChange.Operation;
+import es.uniovi.raul.solutions.cli.selector.LiveOptions;
+import es.uniovi.raul.solutions.course.*;
 import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.monitoring.Tracer;
 
 /**
- * Encapsulates interactive choosing logic for group and solution.
+ * Encapsulates interactive choosing logic for groups and solutions.
+ *
+ * Several groups and solutions can be chosen at once. Each chosen solution is then shown to the chosen groups
+ * that cannot access it or, if all of them can, hidden from all of them. All the changes are confirmed together
+ * and applied as a concurrent batch.
  */
 public final class ManualGrantAgent {
 
     private final Prompter prompter;
+    private final BatchRunner runner;
 
     public ManualGrantAgent(Prompter prompter) {
+        this(prompter, new BatchRunner());
+    }
+
+    public ManualGrantAgent(Prompter prompter, BatchRunner runner) {
         this.prompter = prompter;
+        this.runner = runner;
     }
 
     public void doManualSelection(Course course)
             throws IOException, GithubApiException, InterruptedException {
 
-        var chosenGroup = chooseGroup(course);
+        var chosenGroups = chooseGroups(course);
 
-        var chosenSolution = chooseSolution(course, chosenGroup);
+        var chosenSolutions = chooseSolutions(course, chosenGroups);
 
-        if (chosenGroup.hasAccessTo(chosenSolution))
-            confirmAndApply("revoke", Group::revokeAccess, chosenGroup, chosenSolution);
+        var changes = VisibilityPlanner.toggle(course, chosenGroups, chosenSolutions);
+        if (changes.isEmpty())
+            System.out.println("The chosen solutions do not belong to the chosen groups. Nothing to do.");
+        else if (changes.size() == 1)
+            confirmAndApply(changes.get(0));
         else
-            confirmAndApply("grant", Group::grantAccess, chosenGroup, chosenSolution);
+            confirmAndApply(changes);
     }
 
-    private Group chooseGroup(Course course) throws IOException {
+    private List<Group> chooseGroups(Course course) throws IOException {
 
-        System.out.println("Choose the group:");
-        int selectedGroupIndex = showOptions(course.groups().stream().map(Group::name).toList());
-        return course.groups().get(selectedGroupIndex);
+        System.out.println("Choose the groups:");
+        var selectedIndexes = showMultipleOptions(course.groups().stream().map(Group::name).toList());
+        return selectedIndexes.stream().map(course.groups()::get).toList();
     }
 
-    private String chooseSolution(Course course, Group chosenGroup)
-            throws IOException, GithubApiException, InterruptedException {
+    private List<String> chooseSolutions(Course course, List<Group> chosenGroups) throws IOException {
 
-        System.out.println("Choose the solution:");
+        System.out.println("Choose the solutions:");
 
         // One thing is the solution names ("solution1"), another is what the user sees ("solution1 [accessible]")
-        var sortedSolutions = course.solutions().stream().sorted().toList();
-        var userOptions = new ArrayList<String>();
+        var sortedSolutions = ReleaseOrder.sort(chosenGroups.stream()
+                .flatMap(group -> course.releaseOrderFor(group).names().stream())
+                .distinct()
+                .toList());
+        var userOptions = new LiveOptions(sortedSolutions.stream().map(solution -> solution + " [loading]").toList());
 
-        // Use for loop to avoid lambda exception issues
-        for (var solution : sortedSolutions)
-            userOptions.add(solution + (chosenGroup.hasAccessTo(solution) ? " [accessible]" : " [hidden]"));
+        // The selector is shown right away and the access of the groups is filled in when it arrives
+        Thread.startVirtualThread(() -> loadSolutionOptions(course, chosenGroups, sortedSolutions, userOptions));
 
-        int selectedSolutionIndex = showOptions(userOptions);
-        return sortedSolutions.get(selectedSolutionIndex);
+        var selectedIndexes = showMultipleOptions(userOptions);
+        return selectedIndexes.stream().map(sortedSolutions::get).toList();
     }
 
-    private void confirmAndApply(String verb, AccessAction action, Group group, String solution)
+    // If the access cannot be loaded, it is shown as unknown. The error will be reported when the changes are
+    // planned
+    private static void loadSolutionOptions(Course course, List<Group> groups, List<String> solutions,
+            LiveOptions userOptions) {
+
+        try (var span = Tracer.span("loadSolutionOptions", groups.size() == 1 ? groups.get(0).name() : null)) {
+            Concurrently.forEach(groups, Concurrently.DEFAULT_PARALLELISM, Group::getAccesibleSolutions);
+            for (int i = 0; i < solutions.size(); i++) {
+                var solution = solutions.get(i);
+                userOptions.set(i, solution + " [" + accessLabel(course, groups, solution) + "]");
+            }
+        } catch (GithubApiException | IOException e) {
+            for (int i = 0; i < solutions.size(); i++)
+                userOptions.set(i, solutions.get(i) + " [unknown]");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            userOptions.complete();
+        }
+    }
+
+    // "accessible" or "hidden" if all the groups agree; otherwise, how many of them can access it
+    private static String accessLabel(Course course, List<Group> groups, String solution)
+            throws GithubApiException, IOException, InterruptedException {
+
+        int withSolution = 0;
+        int withAccess = 0;
+        for (var group : groups) {
+            if (!course.hasSolution(group, solution))
+                continue;
+            withSolution++;
+            if (group.hasAccessTo(solution))
+                withAccess++;
+        }
+
+        if (withAccess == 0)
+            return "hidden";
+        if (withAccess == withSolution)
+            return "accessible";
+        return format("accessible by %d/%d", withAccess, withSolution);
+    }
+
+    private void confirmAndApply(AccessChange change)
             throws GithubApiException, InterruptedException, IOException {
 
-        var message = format("%nDo you want to %s group '%s' access to '%s'?", verb.toUpperCase(), group.name(),
-                solution);
+        var verb = change.operation() == Operation.GRANT ? "grant" : "revoke";
+        var message = format("%nDo you want to %s group '%s' access to '%s'?", verb.toUpperCase(),
+                change.group().name(), change.solution());
         if (prompter.confirm(message)) {
-            action.apply(group, solution);
-            System.out.println("Access " + verb.toLowerCase() + "ed."); // Very hacky and cutre
+            change.apply();
+            System.out.println("Access " + verb + "ed."); // Very hacky and cutre
         } else
             System.out.println("Operation cancelled.");
     }
-}
 
-@FunctionalInterface
-interface AccessAction {
-    void apply(Group group, String solution)
-            throws GithubApiException, InterruptedException, IOException;
+    private void confirmAndApply(List<AccessChange> changes) throws InterruptedException {
+
+        System.out.printf("%n%d changes are needed:%n", changes.size());
+        changes.forEach(change -> System.out.println("  - " + change));
+        if (!prompter.confirm(format("%nDo you want to apply these %d changes?", changes.size()))) {
+            System.out.println("Operation cancelled.");
+            return;
+        }
+
+        BatchResult result;
+        try (var span = Tracer.span("applyChanges")) {
+            result = runner.run(changes);
+        }
+        System.out.printf("%d changes applied.%n", result.applied().size());
+        for (var failure : result.failed())
+            System.out.printf("Could not %s: %s%n", failure.change(), failure.error().getMessage());
+    }
 }
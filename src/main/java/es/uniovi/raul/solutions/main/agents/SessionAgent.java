@@ -0,0 +1,157 @@
+package es.uniovi.raul.solutions.main.agents;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.*;
+import java.util.*;
+
+import es.uniovi.raul.solutions.course.Course;
+import es.uniovi.raul.solutions.course.Group;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.monitoring.Tracer;
+
+/**
+ * Runs commands on a course that stays loaded between them, so each grant or revoke costs one call to GitHub
+ * instead of loading the course again. The access of each group is fetched the first time it is needed and kept
+ * up to date with the changes made in the session (use {@code refresh} to see changes made elsewhere).
+ *
+ * The commands are explicit, so they are applied without asking for confirmation. A command that fails reports
+ * the error and the session goes on.
+ */
+public final class SessionAgent {
+
+    private static final String HELP = """
+            Commands:
+              groups                      List the groups
+              show <group>                List the solutions of the group and whether it has access to them
+              next <group>                Show the next solution, in release order, that the group cannot access
+              grant <group> <solution>    Give the group access to the solution
+              revoke <group> <solution>   Remove the access of the group to the solution
+              refresh [<group>]           Fetch again the access of the group (or of all of them) from GitHub
+              matrix                      Print which solutions each group has access to
+              help                        Print this help
+              quit                        End the session
+            """;
+
+    private final BufferedReader input;
+    private final PrintStream output;
+
+    public SessionAgent(BufferedReader input, PrintStream output) {
+        notNull(input, output);
+
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * Reads and runs commands until {@code quit} or the end of the input.
+     */
+    public void run(Course course) throws IOException, InterruptedException {
+        notNull(course, "course");
+
+        output.println("Type 'help' to see the commands.");
+        while (true) {
+            output.print("solutions> ");
+            output.flush();
+            var line = input.readLine();
+            if (line == null)
+                return;
+
+            var words = line.trim().split("\\s+");
+            var command = words[0].toLowerCase(Locale.ROOT);
+            if (command.equals("quit") || command.equals("exit"))
+                return;
+            if (command.isEmpty())
+                continue;
+
+            try (var span = Tracer.span("session:" + command)) {
+                execute(course, command, Arrays.asList(words).subList(1, words.length));
+            } catch (GithubApiException | IOException | RuntimeException e) {
+                output.println("[Error] " + e.getMessage());
+            }
+        }
+    }
+
+    private void execute(Course course, String command, List<String> args)
+            throws GithubApiException, IOException, InterruptedException {
+
+        switch (command) {
+            case "groups" -> course.groups().forEach(group -> output.println(group.name()));
+            case "show" -> show(course, group(course, String.join(" ", args)));
+            case "next" -> next(course, group(course, String.join(" ", args)));
+            case "grant" -> grant(course, args);
+            case "revoke" -> revoke(course, args);
+            case "refresh" -> refresh(course, args);
+            case "matrix" -> output.print(course.accessMatrix().toTable());
+            case "help" -> output.print(HELP);
+            default -> throw new IllegalArgumentException(
+                    "Unknown command '" + command + "'. Type 'help' to see the commands.");
+        }
+    }
+
+    private void show(Course course, Group group) throws GithubApiException, IOException, InterruptedException {
+        for (var solution : course.releaseOrderFor(group).names())
+            output.printf("%s [%s]%n", solution, group.hasAccessTo(solution) ? "accessible" : "hidden");
+    }
+
+    private void next(Course course, Group group) throws GithubApiException, IOException, InterruptedException {
+        course.nextHiddenSolution(group).ifPresentOrElse(output::println,
+                () -> output.printf("Group '%s' can already access all the solutions.%n", group.name()));
+    }
+
+    private void grant(Course course, List<String> args)
+            throws GithubApiException, IOException, InterruptedException {
+
+        var group = groupOf(course, args);
+        var solution = solutionOf(course, group, args);
+        if (group.hasAccessTo(solution)) {
+            output.printf("Group '%s' already has access to '%s'.%n", group.name(), solution);
+            return;
+        }
+        group.grantAccess(solution);
+        output.println("Access granted.");
+    }
+
+    private void revoke(Course course, List<String> args)
+            throws GithubApiException, IOException, InterruptedException {
+
+        var group = groupOf(course, args);
+        var solution = solutionOf(course, group, args);
+        if (!group.hasAccessTo(solution)) {
+            output.printf("Group '%s' has no access to '%s'.%n", group.name(), solution);
+            return;
+        }
+        group.revokeAccess(solution);
+        output.println("Access revoked.");
+    }
+
+    private void refresh(Course course, List<String> args) {
+        if (args.isEmpty())
+            course.groups().forEach(Group::refresh);
+        else
+            group(course, String.join(" ", args)).refresh();
+        output.println("The access will be fetched again when needed.");
+    }
+
+    // In "grant <group> <solution>" the group is everything but the last word, as its name may have spaces
+    private static Group groupOf(Course course, List<String> args) {
+        if (args.size() < 2)
+            throw new IllegalArgumentException("A group and a solution are required.");
+        return group(course, String.join(" ", args.subList(0, args.size() - 1)));
+    }
+
+    private static String solutionOf(Course course, Group group, List<String> args) {
+        var solution = args.get(args.size() - 1);
+        if (!course.hasSolution(group, solution))
+            throw new IllegalArgumentException("There is no solution '" + solution + "' for group '"
+                    + group.name() + "'.");
+        return solution;
+    }
+
+    private static Group group(Course course, String name) {
+        if (name.isEmpty())
+            throw new IllegalArgumentException("A group is required.");
+        return course.findGroup(name)
+                .orElseThrow(() -> new IllegalArgumentException("There is no group '" + name + "'."));
+    }
+}
@@ -0,0 +1,146 @@
+package es.uniovi.raul.solutions.main.agents;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import es.uniovi.raul.solutions.batch.*;
+import es.uniovi.raul.solutions.batch.DesiredStateLoader.InvalidDesiredState;
+import es.uniovi.raul.solutions.batch.IntentLog.Intent;
+import es.uniovi.raul.solutions.course.Course;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.monitoring.Tracer;
+
+/**
+ * Makes the visibility of the solutions match a desired state.
+ *
+ * First it shows the plan (the minimal list of grants and revokes) and then, if the user confirms,
+ * applies it as a concurrent batch.
+ *
+ * The batch is recorded in an {@link IntentLog}, so if it is interrupted it can be resumed with
+ * {@link #resume(Course)}, which only applies the changes that were not done. In a dry run, the intent log is
+ * only read: the changes are not made, so recording them would lose the batch that is still to be resumed.
+ */
+public final class SyncAgent {
+
+    private final Prompter prompter;
+    private final BatchRunner runner;
+    private final Path intentLogFile;
+    private final boolean dryRun;
+
+    public SyncAgent(Prompter prompter, BatchRunner runner, Path intentLogFile) {
+        this(prompter, runner, intentLogFile, false);
+    }
+
+    public SyncAgent(Prompter prompter, BatchRunner runner, Path intentLogFile, boolean dryRun) {
+        this.prompter = prompter;
+        this.runner = runner;
+        this.intentLogFile = intentLogFile;
+        this.dryRun = dryRun;
+    }
+
+    /**
+     * Plans and applies the changes.
+     *
+     * @return true if the course matches the desired state at the end (including when nothing had to be changed)
+     */
+    public boolean sync(Course course, Map<String, Set<String>> desired)
+            throws InvalidDesiredState, GithubApiException, IOException, InterruptedException {
+
+        List<AccessChange> changes;
+        try (var span = Tracer.span("planChanges")) {
+            changes = VisibilityPlanner.plan(course, desired);
+        }
+        if (changes.isEmpty()) {
+            System.out.println("The solutions already have the desired visibility. Nothing to do.");
+            return true;
+        }
+
+        System.out.printf("%d changes are needed:%n", changes.size());
+        changes.forEach(change -> System.out.println("  - " + capitalize(change.toString())));
+
+        if (!prompter.confirm(String.format("%nDo you want to apply these %d changes?", changes.size()))) {
+            System.out.println("Operation cancelled.");
+            return true;
+        }
+
+        if (dryRun)
+            return apply(changes, null);
+
+        if (Files.exists(intentLogFile))
+            System.out.printf("The interrupted batch in '%s' is discarded: this plan replaces it.%n", intentLogFile);
+
+        try (var log = IntentLog.start(intentLogFile, changes)) {
+            return apply(changes, log);
+        }
+    }
+
+    /**
+     * Applies the changes of an interrupted batch that were not done.
+     *
+     * @return true if all the pending changes were applied (including when there was nothing to resume)
+     */
+    public boolean resume(Course course) throws IOException, InterruptedException {
+
+        if (!Files.exists(intentLogFile)) {
+            System.out.printf("There is no interrupted batch to resume ('%s' does not exist).%n", intentLogFile);
+            return true;
+        }
+
+        if (dryRun)
+            return resume(course, IntentLog.read(intentLogFile), null);
+
+        try (var log = IntentLog.resume(intentLogFile)) {
+            return resume(course, log.pending(), log);
+        }
+    }
+
+    // The log is null in a dry run
+    private boolean resume(Course course, List<Intent> pending, IntentLog log) throws InterruptedException {
+        var changes = new ArrayList<AccessChange>();
+        boolean allFound = true;
+        for (var intent : pending) {
+            var group = course.findGroup(intent.group());
+            if (group.isPresent()) {
+                changes.add(new AccessChange(group.get(), intent.solution(), intent.operation()));
+            } else {
+                System.out.printf("Group '%s' no longer exists. Skipping its change of '%s'.%n", intent.group(),
+                        intent.solution());
+                allFound = false;
+            }
+        }
+
+        if (changes.isEmpty()) {
+            System.out.println("The interrupted batch has no pending changes. Nothing to do.");
+            return allFound;
+        }
+
+        System.out.printf("%d changes of the interrupted batch are pending:%n", changes.size());
+        changes.forEach(change -> System.out.println("  - " + capitalize(change.toString())));
+
+        if (!prompter.confirm(String.format("%nDo you want to apply these %d changes?", changes.size()))) {
+            System.out.println("Operation cancelled.");
+            return true;
+        }
+
+        return apply(changes, log) && allFound;
+    }
+
+    private boolean apply(List<AccessChange> changes, IntentLog log) throws InterruptedException {
+        BatchResult result;
+        try (var span = Tracer.span("applyChanges")) {
+            result = runner.run(changes, log);
+        }
+        System.out.printf("%d changes applied.%n", result.applied().size());
+        for (var failure : result.failed())
+            System.out.printf("Could not %s: %s%n", failure.change(), failure.error().getMessage());
+        if (!result.isSuccessful())
+            System.out.printf("Run again with --resume to retry the %d failed changes.%n", result.failed().size());
+
+        return result.isSuccessful();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
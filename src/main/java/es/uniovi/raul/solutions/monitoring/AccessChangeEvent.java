@@ -0,0 +1,36 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event for each solution shown to or hidden from a group.
+ */
+@Name("es.uniovi.raul.solutions.AccessChange")
+@Label("Access Change")
+@Category({ "Solutions" })
+@Description("A solution shown to (grant) or hidden from (revoke) a group")
+public final class AccessChangeEvent extends Event {
+
+    @Label("Group")
+    private String group;
+
+    @Label("Solution")
+    private String solution;
+
+    @Label("Operation")
+    @Description("'grant' or 'revoke'")
+    private String operation;
+
+    @Label("Successful")
+    private boolean successful;
+
+    public AccessChangeEvent(String group, String solution, String operation) {
+        this.group = group;
+        this.solution = solution;
+        this.operation = operation;
+    }
+
+    public void setSuccessful(boolean successful) {
+        this.successful = successful;
+    }
+}
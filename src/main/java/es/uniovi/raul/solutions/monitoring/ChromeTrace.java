@@ -0,0 +1,63 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Exports finished spans in the Chrome trace event format, which can be opened with chrome://tracing or
+ * https://ui.perfetto.dev to see the spans of each thread in a timeline.
+ *
+ * Each span is a complete event ("ph": "X") with its times in microseconds since the first span started.
+ */
+public final class ChromeTrace {
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final int PROCESS_ID = 1;
+
+    public static void write(List<SpanRecord> spans, Path file) throws IOException {
+        notNull(spans, file);
+
+        Files.writeString(file, toJson(spans));
+    }
+
+    public static String toJson(List<SpanRecord> spans) {
+        notNull(spans, "spans");
+
+        var mapper = new ObjectMapper();
+        var root = mapper.createObjectNode();
+        root.put("displayTimeUnit", "ms");
+        var events = root.putArray("traceEvents");
+
+        long origin = spans.stream().mapToLong(SpanRecord::startNanos).min().orElse(0);
+        var threads = new TreeMap<Long, String>();
+        for (var span : spans) {
+            ObjectNode event = events.addObject()
+                    .put("name", span.name())
+                    .put("cat", "solutions")
+                    .put("ph", "X")
+                    .put("ts", (span.startNanos() - origin) / NANOS_PER_MICRO)
+                    .put("dur", span.durationNanos() / NANOS_PER_MICRO)
+                    .put("pid", PROCESS_ID)
+                    .put("tid", span.threadId());
+            if (span.detail() != null)
+                event.putObject("args").put("detail", span.detail());
+            threads.put(span.threadId(), span.threadName());
+        }
+
+        // Metadata events to show the names of the threads
+        threads.forEach((id, name) -> events.addObject()
+                .put("name", "thread_name")
+                .put("ph", "M")
+                .put("pid", PROCESS_ID)
+                .put("tid", id)
+                .putObject("args").put("name", name.isEmpty() ? "thread " + id : name));
+
+        return root.toPrettyString();
+    }
+}
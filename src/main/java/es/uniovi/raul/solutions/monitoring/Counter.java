@@ -0,0 +1,28 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A value that only increases, such as the number of requests sent. Created by {@link MetricsRegistry}.
+ */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        if (amount < 0)
+            throw new IllegalArgumentException("A counter cannot decrease.");
+        value.add(amount);
+    }
+
+    public long value() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,32 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event for listing the teams and repositories of an organization to create its course. The
+ * schedule and the repositories each group can access are loaded apart, so they are not included.
+ */
+@Name("es.uniovi.raul.solutions.CourseLoad")
+@Label("Course Load")
+@Category({ "Solutions" })
+@Description("Listing of the teams and repositories of the organization to create its groups and solutions")
+public final class CourseLoadEvent extends Event {
+
+    @Label("Organization")
+    private String organization;
+
+    @Label("Groups")
+    private int groups;
+
+    @Label("Solutions")
+    private int solutions;
+
+    public CourseLoadEvent(String organization) {
+        this.organization = organization;
+    }
+
+    public void setLoaded(int groupsCount, int solutionsCount) {
+        this.groups = groupsCount;
+        this.solutions = solutionsCount;
+    }
+}
@@ -0,0 +1,20 @@
+package es.uniovi.raul.solutions.monitoring;
+
+/**
+ * A value that can go up and down, such as the remaining GitHub rate limit. Created by {@link MetricsRegistry}.
+ */
+public final class Gauge {
+
+    private volatile double value;
+
+    Gauge() {
+    }
+
+    public void set(double newValue) {
+        this.value = newValue;
+    }
+
+    public double value() {
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import java.net.URI;
+
+import jdk.jfr.*;
+
+/**
+ * Java Flight Recorder event for each request sent to GitHub.
+ *
+ * The duration of the event is the time until the whole response was received.
+ */
+@Name("es.uniovi.raul.solutions.GithubRequest")
+@Label("GitHub Request")
+@Category({ "Solutions", "GitHub" })
+@Description("A request to the GitHub REST API")
+public final class GithubRequestEvent extends Event {
+
+    @Label("Endpoint")
+    @Description("Operation of the GitHub API, for example 'fetchTeams'")
+    private String endpoint;
+
+    @Label("Method")
+    private String method;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Page")
+    @Description("Page number of paginated requests (1 for the rest)")
+    private int page;
+
+    @Label("Status")
+    @Description("HTTP status code of the response (0 if no response was received)")
+    private int status;
+
+    @Label("Response Size")
+    @DataAmount
+    private long bytes;
+
+    public GithubRequestEvent(String endpoint, String method, URI uri) {
+        this.endpoint = endpoint;
+        this.method = method;
+        this.path = uri.getPath();
+        this.page = pageOf(uri);
+    }
+
+    public void setResponse(int statusCode, long size) {
+        this.status = statusCode;
+        this.bytes = size;
+    }
+
+    private static int pageOf(URI uri) {
+        var query = uri.getQuery() == null ? "" : uri.getQuery();
+        for (var parameter : query.split("&")) {
+            if (parameter.matches("page=\\d{1,9}"))
+                return Integer.parseInt(parameter.substring("page=".length()));
+        }
+        return 1;
+    }
+}
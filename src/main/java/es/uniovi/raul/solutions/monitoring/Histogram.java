@@ -0,0 +1,58 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Distribution of observed values (such as latencies) in buckets with fixed upper bounds. Created by
+ * {@link MetricsRegistry}.
+ */
+public final class Histogram {
+
+    private final double[] upperBounds;
+    private final LongAdder[] bucketCounts; // Not cumulative. The last one is for values above all the bounds
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder count = new LongAdder();
+
+    Histogram(double[] upperBounds) {
+        this.upperBounds = upperBounds.clone();
+        Arrays.sort(this.upperBounds);
+        this.bucketCounts = new LongAdder[upperBounds.length + 1];
+        for (int i = 0; i < bucketCounts.length; i++)
+            bucketCounts[i] = new LongAdder();
+    }
+
+    public void observe(double value) {
+        int bucket = Arrays.binarySearch(upperBounds, value);
+        if (bucket < 0)
+            bucket = -bucket - 1; // Insertion point: the first bound greater than the value
+        bucketCounts[bucket].increment();
+        sum.add(value);
+        count.increment();
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double sum() {
+        return sum.sum();
+    }
+
+    double[] upperBounds() {
+        return upperBounds.clone();
+    }
+
+    /**
+     * Number of values less than or equal to each upper bound, plus the total count at the end.
+     */
+    long[] cumulativeCounts() {
+        var result = new long[bucketCounts.length];
+        long accumulated = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            accumulated += bucketCounts[i].sum();
+            result[i] = accumulated;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,80 @@
+package es.uniovi.raul.solutions.monitoring;
+
+/**
+ * Metrics of the tool, kept in a registry shared by the whole application. Meant for the long-running modes,
+ * where they are exposed at the /metrics endpoint of the server.
+ */
+public final class Metrics {
+
+    // Seconds
+    private static final double[] LATENCY_BUCKETS = { 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    // The metrics without labels, looked up once
+    private static final Gauge RATE_LIMIT_REMAINING = REGISTRY.gauge("solutions_github_rate_limit_remaining",
+            "Requests left in the current GitHub rate limit window (X-RateLimit-Remaining)");
+    private static final Counter GROUP_CACHE_HITS = REGISTRY.counter("solutions_group_cache_hits_total",
+            "Group lookups answered from the cache");
+    private static final Counter GROUP_CACHE_MISSES = REGISTRY.counter("solutions_group_cache_misses_total",
+            "Group lookups that needed to fetch the solutions");
+
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Records a request sent to GitHub.
+     *
+     * @param endpoint the operation of the GitHub API, for example "fetchTeams"
+     * @param status the HTTP status code of the response, or "error" if there was no response
+     */
+    public static void githubRequest(String endpoint, String status, long durationNanos) {
+        REGISTRY.counter("solutions_github_requests_total", "Requests sent to GitHub",
+                "endpoint", endpoint, "status", status).increment();
+        REGISTRY.histogram("solutions_github_request_duration_seconds", "Duration of the requests sent to GitHub",
+                LATENCY_BUCKETS, "endpoint", endpoint).observe(durationNanos / 1e9);
+    }
+
+    /**
+     * Records that a slow request to GitHub was sent again.
+     */
+    public static void githubHedgedRequest(String endpoint) {
+        REGISTRY.counter("solutions_github_hedged_requests_total", "Slow GET requests sent again to GitHub",
+                "endpoint", endpoint).increment();
+    }
+
+    /**
+     * The number of requests that can be sent to GitHub at the same time for the organization. It is set on every
+     * request, so it is meant to be looked up once and kept.
+     */
+    public static Gauge githubConcurrencyLimit(String organization) {
+        return REGISTRY.gauge("solutions_github_concurrency_limit",
+                "Requests that can be sent to GitHub at the same time (adapted to its responses)",
+                "organization", organization);
+    }
+
+    public static void githubRateLimitRemaining(long remaining) {
+        RATE_LIMIT_REMAINING.set(remaining);
+    }
+
+    /**
+     * Records whether the solutions of a group were already loaded (hit) or had to be fetched (miss).
+     */
+    public static void groupCacheAccess(boolean hit) {
+        if (hit)
+            GROUP_CACHE_HITS.increment();
+        else
+            GROUP_CACHE_MISSES.increment();
+    }
+
+    /**
+     * Records a grant or revoke.
+     *
+     * @param operation "grant" or "revoke"
+     */
+    public static void accessChange(String operation, boolean successful) {
+        REGISTRY.counter("solutions_access_changes_total", "Solutions shown to or hidden from a group",
+                "operation", operation, "result", successful ? "success" : "failure").increment();
+    }
+}
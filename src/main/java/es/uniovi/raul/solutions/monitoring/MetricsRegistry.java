@@ -0,0 +1,156 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Set of counters, gauges and histograms that can be exported in the Prometheus text exposition format.
+ *
+ * Metrics are created on their first use and identified by their name and labels (given as name/value pairs):
+ *
+ * <pre>
+ * registry.counter("solutions_github_requests_total", "GitHub requests", "endpoint", "fetchTeams").increment();
+ * </pre>
+ *
+ * All the methods can be used from several threads. Each call looks the metric up, so those used in hot paths
+ * should be looked up once and kept.
+ */
+public final class MetricsRegistry {
+
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+
+    private final ConcurrentMap<String, Family> families = new ConcurrentHashMap<>();
+
+    public Counter counter(String name, String help, String... labels) {
+        return family(name, help, Type.COUNTER).series(labels, Counter.class, Counter::new);
+    }
+
+    public Gauge gauge(String name, String help, String... labels) {
+        return family(name, help, Type.GAUGE).series(labels, Gauge.class, Gauge::new);
+    }
+
+    /**
+     * Returns the histogram with the given name and labels. The buckets are only used when it is created.
+     */
+    public Histogram histogram(String name, String help, double[] buckets, String... labels) {
+        notNull(buckets, "buckets");
+        return family(name, help, Type.HISTOGRAM).series(labels, Histogram.class, () -> new Histogram(buckets));
+    }
+
+    /**
+     * Returns all the metrics in the Prometheus text exposition format (version 0.0.4), sorted by name.
+     */
+    public String toText() {
+        var text = new StringBuilder();
+        for (var family : new TreeMap<>(families).values())
+            family.appendTo(text);
+        return text.toString();
+    }
+
+    private Family family(String name, String help, Type type) {
+        notNull(name, help);
+
+        // The name is only validated when its family is created
+        var family = families.computeIfAbsent(name, key -> {
+            if (!NAME.matcher(name).matches())
+                throw new IllegalArgumentException("Invalid metric name: " + name);
+            return new Family(name, help, type);
+        });
+        if (family.type != type)
+            throw new IllegalArgumentException("Metric '" + name + "' is already registered as a " + family.type);
+        return family;
+    }
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // All the series (one per combination of label values) of a metric
+    private static final class Family {
+
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final ConcurrentMap<String, Object> series = new ConcurrentHashMap<>(); // labels text -> metric
+
+        Family(String name, String help, Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        <T> T series(String[] labels, Class<T> metricClass, Supplier<T> factory) {
+            return metricClass.cast(series.computeIfAbsent(labelsText(labels), key -> factory.get()));
+        }
+
+        void appendTo(StringBuilder text) {
+            text.append("# HELP ").append(name).append(' ').append(escape(help, false)).append('\n');
+            text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+
+            for (var entry : new TreeMap<>(series).entrySet()) {
+                var labels = entry.getKey();
+                switch (entry.getValue()) {
+                    case Counter counter -> appendSample(text, name, labels, format(counter.value()));
+                    case Gauge gauge -> appendSample(text, name, labels, format(gauge.value()));
+                    case Histogram histogram -> appendHistogram(text, labels, histogram);
+                    default -> throw new IllegalStateException("Unknown metric: " + entry.getValue());
+                }
+            }
+        }
+
+        private void appendHistogram(StringBuilder text, String labels, Histogram histogram) {
+            var bounds = histogram.upperBounds();
+            var counts = histogram.cumulativeCounts();
+            for (int i = 0; i < counts.length; i++) {
+                var bound = i < bounds.length ? format(bounds[i]) : "+Inf";
+                appendSample(text, name + "_bucket", withLabel(labels, "le", bound), format(counts[i]));
+            }
+            appendSample(text, name + "_sum", labels, format(histogram.sum()));
+            appendSample(text, name + "_count", labels, format(histogram.count()));
+        }
+    }
+
+    //# Formatting -----------------------------------
+
+    private static void appendSample(StringBuilder text, String name, String labels, String value) {
+        text.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    // ["endpoint", "fetchTeams", "status", "200"] -> {endpoint="fetchTeams",status="200"}
+    private static String labelsText(String[] labels) {
+        if (labels.length % 2 != 0)
+            throw new IllegalArgumentException("Labels must be given as name/value pairs.");
+
+        var text = new StringJoiner(",", "{", "}").setEmptyValue("");
+        for (int i = 0; i < labels.length; i += 2) {
+            notNull(labels[i], labels[i + 1]);
+            text.add(labels[i] + "=\"" + escape(labels[i + 1], true) + "\"");
+        }
+        return text.toString();
+    }
+
+    private static String withLabel(String labels, String name, String value) {
+        var label = name + "=\"" + value + "\"";
+        return labels.isEmpty() ? "{" + label + "}" : labels.substring(0, labels.length() - 1) + "," + label + "}";
+    }
+
+    private static String escape(String text, boolean quotes) {
+        var escaped = text.replace("\\", "\\\\").replace("\n", "\\n");
+        return quotes ? escaped.replace("\"", "\\\"") : escaped;
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value))
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+}
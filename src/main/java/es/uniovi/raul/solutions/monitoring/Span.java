@@ -0,0 +1,41 @@
+package es.uniovi.raul.solutions.monitoring;
+
+/**
+ * A timed section of the execution, opened with {@link Tracer#span(String)} and finished when closed.
+ *
+ * Use it in a try-with-resources block. Closing it more than once has no effect.
+ */
+public final class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(0, null, null, null, 0);
+
+    private final long id;
+    private final Span parent;
+    private final String name;
+    private final String detail;
+    private final long startNanos;
+    private final Thread thread = Thread.currentThread();
+    private boolean closed;
+
+    Span(long id, Span parent, String name, String detail, long startNanos) {
+        this.id = id;
+        this.parent = parent;
+        this.name = name;
+        this.detail = detail;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public void close() {
+        if (this == NOOP || closed)
+            return;
+
+        closed = true;
+        Tracer.finish(this, new SpanRecord(id, parent == null ? 0 : parent.id, name, detail,
+                thread.threadId(), thread.getName(), startNanos, System.nanoTime()));
+    }
+
+    Span parent() {
+        return parent;
+    }
+}
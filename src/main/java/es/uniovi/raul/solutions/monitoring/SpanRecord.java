@@ -0,0 +1,21 @@
+package es.uniovi.raul.solutions.monitoring;
+
+/**
+ * A finished span.
+ *
+ * @param id unique identifier of the span
+ * @param parentId identifier of the span that was open when this one started (0 if none)
+ * @param name what was done, for example "fetchTeams". Spans with the same name are added up in the reports
+ * @param detail what it was done on, for example the name of a group (may be null)
+ * @param threadId the thread that ran the span
+ * @param threadName name of the thread
+ * @param startNanos start, as returned by {@link System#nanoTime()}
+ * @param endNanos end, as returned by {@link System#nanoTime()}
+ */
+public record SpanRecord(long id, long parentId, String name, String detail, long threadId, String threadName,
+        long startNanos, long endNanos) {
+
+    public long durationNanos() {
+        return endNanos - startNanos;
+    }
+}
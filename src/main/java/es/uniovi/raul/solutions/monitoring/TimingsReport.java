@@ -0,0 +1,92 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.util.*;
+
+/**
+ * Formats finished spans as a flame-style text breakdown for the console.
+ *
+ * Each line is a span with its time, its percentage of the total and a bar. Children are indented under their
+ * parent. Sibling spans with the same name are added up in a single line (with the number of spans), so the
+ * children of a parent that ran them concurrently may add up to more than the parent.
+ *
+ * <pre>
+ *  2301.4 ms 100.0%  solutions                 ██████████████████████████████
+ *    35.2 ms   1.5%    parseArguments
+ *  1302.1 ms  56.6%    loadCourse              █████████████████
+ *   412.7 ms  17.9%      fetchTeams            █████
+ * </pre>
+ */
+public final class TimingsReport {
+
+    private static final int BAR_WIDTH = 30;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    public static String format(List<SpanRecord> spans) {
+        notNull(spans, "spans");
+        if (spans.isEmpty())
+            return "No timings were recorded." + System.lineSeparator();
+
+        var children = new HashMap<Long, List<SpanRecord>>();
+        var ids = new HashSet<Long>();
+        var sorted = spans.stream().sorted(Comparator.comparingLong(SpanRecord::startNanos)).toList();
+        for (var span : sorted) {
+            children.computeIfAbsent(span.parentId(), id -> new ArrayList<>()).add(span);
+            ids.add(span.id());
+        }
+        // Spans whose parent was not recorded (or not finished) are shown as roots
+        var roots = sorted.stream().filter(span -> !ids.contains(span.parentId())).toList();
+
+        var lines = new ArrayList<Line>();
+        addLines(aggregate(roots), children, 0, lines);
+
+        long total = lines.stream().filter(line -> line.depth() == 0).mapToLong(Line::nanos).sum();
+        int labelWidth = lines.stream().mapToInt(line -> line.label().length()).max().orElse(0);
+
+        var report = new StringBuilder();
+        for (var line : lines) {
+            double ratio = total == 0 ? 0 : (double) line.nanos() / total;
+            int barLength = (int) Math.min(BAR_WIDTH, Math.round(ratio * BAR_WIDTH));
+            report.append(String.format(Locale.ROOT, "%9.1f ms %5.1f%%  %-" + labelWidth + "s  %s",
+                    line.nanos() / NANOS_PER_MILLI, ratio * 100, line.label(), "█".repeat(barLength)).stripTrailing())
+                    .append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+
+    private static void addLines(List<Node> nodes, Map<Long, List<SpanRecord>> children, int depth,
+            List<Line> lines) {
+
+        for (var node : nodes) {
+            var label = "  ".repeat(depth) + node.name() + (node.spans().size() > 1 ? " ×" + node.spans().size() : "");
+            lines.add(new Line(label, depth, node.nanos()));
+
+            var nodeChildren = node.spans().stream()
+                    .flatMap(span -> children.getOrDefault(span.id(), List.of()).stream())
+                    .sorted(Comparator.comparingLong(SpanRecord::startNanos))
+                    .toList();
+            addLines(aggregate(nodeChildren), children, depth + 1, lines);
+        }
+    }
+
+    // Groups the spans by name, in order of their first start
+    private static List<Node> aggregate(List<SpanRecord> spans) {
+        var byName = new LinkedHashMap<String, List<SpanRecord>>();
+        for (var span : spans)
+            byName.computeIfAbsent(span.name(), name -> new ArrayList<>()).add(span);
+
+        return byName.entrySet().stream()
+                .map(entry -> new Node(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private record Node(String name, List<SpanRecord> spans) {
+        long nanos() {
+            return spans.stream().mapToLong(SpanRecord::durationNanos).sum();
+        }
+    }
+
+    private record Line(String label, int depth, long nanos) {
+    }
+}
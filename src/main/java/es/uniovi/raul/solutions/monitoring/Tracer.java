@@ -0,0 +1,97 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Records how long each part of the execution takes, as nested spans.
+ *
+ * <pre>
+ * try (var span = Tracer.span("loadSchedule", file)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * A span started while another one is open in the same thread is its child. Threads inherit the open span of
+ * the thread that created them, so the work done concurrently is also nested under the span that started it.
+ *
+ * Tracing is disabled by default and then spans cost a volatile read. Once enabled with {@link #enable()},
+ * the finished spans are kept in memory (up to {@value #MAX_SPANS}) to build the reports.
+ */
+public final class Tracer {
+
+    /**
+     * Maximum number of finished spans that are kept. The rest are discarded.
+     */
+    public static final int MAX_SPANS = 100_000;
+
+    private static final InheritableThreadLocal<Span> CURRENT = new InheritableThreadLocal<>();
+    private static final Queue<SpanRecord> FINISHED = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger FINISHED_COUNT = new AtomicInteger();
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private static volatile boolean enabled;
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static Span span(String name) {
+        return span(name, null);
+    }
+
+    /**
+     * Starts a span now.
+     *
+     * @param detail what the span works on (for example, the name of a group). It is not used to add up spans.
+     */
+    public static Span span(String name, String detail) {
+        return span(name, detail, System.nanoTime());
+    }
+
+    /**
+     * Starts a span that began at the given time (as returned by {@link System#nanoTime()}). Useful for work
+     * that was done before tracing was enabled.
+     */
+    public static Span span(String name, String detail, long startNanos) {
+        if (!enabled)
+            return Span.NOOP;
+        notNull(name, "name");
+
+        var span = new Span(IDS.incrementAndGet(), CURRENT.get(), name, detail, startNanos);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * Finished spans, sorted by start time.
+     */
+    public static List<SpanRecord> finishedSpans() {
+        return FINISHED.stream()
+                .sorted(Comparator.comparingLong(SpanRecord::startNanos))
+                .toList();
+    }
+
+    static void finish(Span span, SpanRecord finished) {
+        if (CURRENT.get() == span)
+            CURRENT.set(span.parent());
+
+        if (FINISHED_COUNT.incrementAndGet() <= MAX_SPANS)
+            FINISHED.add(finished);
+    }
+
+    // For tests
+    static void reset() {
+        enabled = false;
+        CURRENT.remove();
+        FINISHED.clear();
+        FINISHED_COUNT.set(0);
+    }
+}
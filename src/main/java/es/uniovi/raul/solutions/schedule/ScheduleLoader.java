@@ -6,19 +6,24 @@ import static java.time.format.DateTimeFormatter.*;
 
 import java.io.IOException;
 import java.time.LocalTime;
-import java.time.format.DateTimeParseException;
+import java.time.format.*;
 import java.util.*;
 import java.util.regex.Pattern;
 
 import org.apache.commons.csv.*;
 
 import es.uniovi.raul.solutions.course.Schedule;
+import es.uniovi.raul.solutions.monitoring.Tracer;
 
 /**
  * Utility class to load schedules from a CSV file.
  */
 public final class ScheduleLoader {
 
+    // "2" (hours), "2h" (hours) or "2m" (minutes)
+    private static final Pattern DURATION = Pattern.compile("^(\\d+)([hm])?$");
+    private static final DateTimeFormatter TIME = ofPattern("[H:mm][HH:mm][H]");
+
     /**
      * Loads schedules from a CSV file. The expected format is:
      * group, weekday, start_time, duration
@@ -29,7 +34,8 @@ public final class ScheduleLoader {
     public static Map<String, Schedule> load(String scheduleFile) throws IOException, InvalidScheduleFormat {
         Map<String, Schedule> schedules = new HashMap<>();
 
-        try (var reader = java.nio.file.Files.newBufferedReader(java.nio.file.Paths.get(scheduleFile));
+        try (var span = Tracer.span("loadSchedule", scheduleFile);
+                var reader = java.nio.file.Files.newBufferedReader(java.nio.file.Paths.get(scheduleFile));
                 var csvParser = new CSVParser(reader, CSVFormat.Builder.create()
                         .setIgnoreSurroundingSpaces(true)
                         .setTrim(true)
@@ -56,8 +62,7 @@ public final class ScheduleLoader {
         if (value.isEmpty())
             return 60 * 2; // 2 hours
 
-        // The value can be "2" (hours), "2h" (hours) or "2m" (minutes)
-        var matcher = Pattern.compile("^(\\d+)([hm])?$").matcher(value.get());
+        var matcher = DURATION.matcher(value.get());
         if (!matcher.matches())
             throw newFormatException(csvRecord, column, "<integer> or <integer>h or <integer>m>");
 
@@ -97,7 +102,7 @@ public final class ScheduleLoader {
 
     private static LocalTime parseTime(String input) throws InvalidScheduleFormat {
         try {
-            return LocalTime.parse(input.trim(), ofPattern("[H:mm][HH:mm][H]"));
+            return LocalTime.parse(input.trim(), TIME);
         } catch (DateTimeParseException e) {
             throw new InvalidScheduleFormat("Invalid time format: '" + input + "'. Expected `hh:mm`, `h:mm` or `h`");
         }
@@ -0,0 +1,311 @@
+package es.uniovi.raul.solutions.server;
+
+import static es.uniovi.raul.solutions.debug.Debug.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import com.fasterxml.jackson.databind.*;
+import com.sun.net.httpserver.*;
+
+import es.uniovi.raul.solutions.course.*;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.monitoring.Metrics;
+
+/**
+ * Exposes the operations of a {@link Course} as a small REST API on localhost.
+ *
+ * The course is loaded once and kept in memory, so several users and scripts can share its cached state
+ * instead of running the tool (and crawling GitHub) each time. Every request is handled in its own virtual thread.
+ *
+ * Endpoints:
+ * <pre>
+ * GET  /groups                             -> [{"name": "G1", "schedule": "monday 10:00-12:00"}, ...]
+ * GET  /groups/{group}/solutions           -> [{"solution": "s1", "accessible": true}, ...]
+ * POST /groups/{group}/grant  {"solution": "s1"}
+ * POST /groups/{group}/revoke {"solution": "s1"}
+ * GET  /solutions                          -> ["s1", "s2", ...]
+ * GET  /metrics                            -> metrics in the Prometheus text format
+ * </pre>
+ *
+ * As any web page open in a browser of the same machine can send requests to localhost, the grants and revokes
+ * need the token created with the server ({@code Authorization: Bearer <token>}) and a JSON content type, which a
+ * page cannot send to another origin without the browser asking it first.
+ */
+public final class CourseServer implements AutoCloseable {
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_NO_CONTENT = 204;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_UNAUTHORIZED = 401;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_UNSUPPORTED_MEDIA_TYPE = 415;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final int HTTP_BAD_GATEWAY = 502;
+
+    private final Course course;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String token;
+
+    /**
+     * Creates a server for the course on the given port of the loopback interface. Use port 0 to
+     * choose any free port. The server does not accept requests until {@link #start()} is called.
+     */
+    public CourseServer(Course course, int port) throws IOException {
+        notNull(course, "course");
+
+        this.course = course;
+        this.token = newToken();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/groups", exchange -> handle(exchange, this::routeGroups));
+        server.createContext("/solutions", exchange -> handle(exchange, this::routeSolutions));
+        server.createContext("/metrics", exchange -> handle(exchange, this::routeMetrics));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * The token that the grants and revokes must send, as {@code Authorization: Bearer <token>}.
+     */
+    public String token() {
+        return token;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    //# Routing -----------------------------------
+
+    private void routeSolutions(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/solutions")) {
+            sendError(exchange, HTTP_NOT_FOUND, "Not found");
+            return;
+        }
+        if (!isMethod(exchange, "GET"))
+            return;
+
+        var array = mapper.createArrayNode();
+        course.solutions().stream().sorted().forEach(array::add);
+        sendJson(exchange, HTTP_OK, array);
+    }
+
+    private void routeMetrics(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals("/metrics")) {
+            sendError(exchange, HTTP_NOT_FOUND, "Not found");
+            return;
+        }
+        if (!isMethod(exchange, "GET"))
+            return;
+
+        byte[] body = Metrics.registry().toText().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(HTTP_OK, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void routeGroups(HttpExchange exchange)
+            throws IOException, GithubApiException, InterruptedException {
+
+        // "/groups" -> [], "/groups/G1/solutions" -> ["G1", "solutions"]
+        var parts = exchange.getRequestURI().getRawPath().split("/");
+        if (parts.length < 2 || !parts[1].equals("groups")) {
+            sendError(exchange, HTTP_NOT_FOUND, "Not found");
+            return;
+        }
+        var segments = Arrays.stream(parts)
+                .skip(2)
+                .map(segment -> URLDecoder.decode(segment, StandardCharsets.UTF_8))
+                .toList();
+
+        if (segments.isEmpty()) {
+            if (isMethod(exchange, "GET"))
+                listGroups(exchange);
+            return;
+        }
+
+        if (segments.size() != 2) {
+            sendError(exchange, HTTP_NOT_FOUND, "Not found");
+            return;
+        }
+
+        var group = course.findGroup(segments.get(0));
+        if (group.isEmpty()) {
+            sendError(exchange, HTTP_NOT_FOUND, "Group '" + segments.get(0) + "' does not exist");
+            return;
+        }
+
+        switch (segments.get(1)) {
+            case "solutions" -> {
+                if (isMethod(exchange, "GET"))
+                    listSolutions(exchange, group.get());
+            }
+            case "grant" -> {
+                if (isMethod(exchange, "POST"))
+                    changeAccess(exchange, group.get(), true);
+            }
+            case "revoke" -> {
+                if (isMethod(exchange, "POST"))
+                    changeAccess(exchange, group.get(), false);
+            }
+            default -> sendError(exchange, HTTP_NOT_FOUND, "Not found");
+        }
+    }
+
+    //# Operations -----------------------------------
+
+    private void listGroups(HttpExchange exchange) throws IOException {
+        var array = mapper.createArrayNode();
+        for (var group : course.groups()) {
+            var node = array.addObject().put("name", group.name());
+            group.schedule().ifPresent(schedule -> node.put("schedule", String.format("%s %s-%s",
+                    schedule.dayOfWeek(), schedule.startTime(), schedule.getEndTime())));
+        }
+        sendJson(exchange, HTTP_OK, array);
+    }
+
+    private void listSolutions(HttpExchange exchange, Group group)
+            throws IOException, GithubApiException, InterruptedException {
+
+        var array = mapper.createArrayNode();
+        for (var solution : course.solutionsFor(group).stream().sorted().toList())
+            array.addObject()
+                    .put("solution", solution)
+                    .put("accessible", group.hasAccessTo(solution));
+        sendJson(exchange, HTTP_OK, array);
+    }
+
+    private void changeAccess(HttpExchange exchange, Group group, boolean grant)
+            throws IOException, GithubApiException, InterruptedException {
+
+        if (!hasToken(exchange)) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Bearer");
+            sendError(exchange, HTTP_UNAUTHORIZED, "Send the token printed at startup as 'Authorization: Bearer <token>'");
+            return;
+        }
+        if (!isJson(exchange)) {
+            sendError(exchange, HTTP_UNSUPPORTED_MEDIA_TYPE, "The body must be sent as 'Content-Type: application/json'");
+            return;
+        }
+
+        var solution = readSolution(exchange);
+        if (solution.isEmpty()) {
+            sendError(exchange, HTTP_BAD_REQUEST, "Expected a JSON body like {\"solution\": \"<name>\"}");
+            return;
+        }
+        if (!course.hasSolution(group, solution.get())) {
+            sendError(exchange, HTTP_NOT_FOUND, "Solution '" + solution.get() + "' does not exist");
+            return;
+        }
+
+        if (grant)
+            group.grantAccess(solution.get());
+        else
+            group.revokeAccess(solution.get());
+
+        exchange.sendResponseHeaders(HTTP_NO_CONTENT, -1);
+    }
+
+    //# Auxiliary methods -----------------------------------
+
+    // An IOException before the response is started comes from GitHub. Once it is started, it is the client that
+    // has gone, and nothing else can be done with the exchange
+    private void handle(HttpExchange exchange, Route route) {
+        try (exchange) {
+            try {
+                route.handle(exchange);
+            } catch (GithubApiException e) {
+                sendError(exchange, HTTP_BAD_GATEWAY, e.getMessage());
+            } catch (IOException e) {
+                if (isResponseStarted(exchange))
+                    throw e;
+                sendError(exchange, HTTP_BAD_GATEWAY, "GitHub could not be reached: " + e.getMessage());
+            } catch (RuntimeException e) {
+                if (!isResponseStarted(exchange))
+                    sendError(exchange, HTTP_INTERNAL_ERROR, "Internal error: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } catch (IOException e) {
+            // The client has gone
+        }
+    }
+
+    private static boolean isResponseStarted(HttpExchange exchange) {
+        return exchange.getResponseCode() != -1;
+    }
+
+    private static String newToken() {
+        var bytes = new byte[24]; // 192 random bits, encoded in 32 characters
+        new SecureRandom().nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    // Compared in constant time, so the time of the response does not tell how much of the token was right
+    private boolean hasToken(HttpExchange exchange) {
+        var authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        return authorization != null && MessageDigest.isEqual(
+                authorization.getBytes(StandardCharsets.UTF_8),
+                ("Bearer " + token).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // "application/json; charset=utf-8" -> "application/json"
+    private static boolean isJson(HttpExchange exchange) {
+        var contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        return contentType != null && contentType.split(";")[0].trim().equalsIgnoreCase("application/json");
+    }
+
+    private Optional<String> readSolution(HttpExchange exchange) {
+        try {
+            JsonNode body = mapper.readTree(exchange.getRequestBody());
+            JsonNode solution = body == null ? null : body.get("solution");
+            if (solution != null && solution.isTextual() && !solution.asText().isBlank())
+                return Optional.of(solution.asText());
+        } catch (IOException e) {
+            // Invalid JSON
+        }
+        return Optional.empty();
+    }
+
+    private boolean isMethod(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod()))
+            return true;
+
+        exchange.getResponseHeaders().add("Allow", method);
+        sendError(exchange, HTTP_BAD_METHOD, "Method not allowed. Use " + method);
+        return false;
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        sendJson(exchange, status, mapper.createObjectNode().put("message", message));
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode json) throws IOException {
+        byte[] body = mapper.writeValueAsBytes(json);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    @FunctionalInterface
+    private interface Route {
+        void handle(HttpExchange exchange) throws IOException, GithubApiException, InterruptedException;
+    }
+}
@@ -0,0 +1,154 @@
+package es.uniovi.raul.solutions.audit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.uniovi.raul.solutions.audit.AuditEntry.Action;
+
+class AuditJournalTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-10T09:30:00Z");
+
+    @TempDir
+    Path folder;
+
+    @Test
+    @DisplayName("The appended entries are read back in order")
+    void roundTrip() throws Exception {
+        var file = folder.resolve("audit.journal");
+        var grant = new AuditEntry(NOW, "org", "group-a1", "ex1-solution", Action.GRANT, true, Duration.ofMillis(120));
+        var revoke = new AuditEntry(NOW.plusSeconds(1), "other-org", "group-a1", "ex1-solution", Action.REVOKE,
+                false, Duration.ofMillis(35));
+
+        try (var journal = new AuditJournal(file)) {
+            journal.append(grant);
+            journal.append(revoke);
+        }
+
+        assertEquals(List.of(grant, revoke), AuditJournal.read(file));
+    }
+
+    @Test
+    @DisplayName("A missing journal has no entries and is not created until something is appended")
+    void missing() throws Exception {
+        var file = folder.resolve("audit.journal");
+
+        try (var journal = new AuditJournal(file)) {
+            // Nothing is appended
+        }
+
+        assertFalse(Files.exists(file));
+        assertTrue(AuditJournal.read(file).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Reopening a journal appends after the existing entries")
+    void reopen() throws Exception {
+        var file = folder.resolve("audit.journal");
+
+        try (var journal = new AuditJournal(file)) {
+            journal.append(entry(1));
+            journal.append(entry(2));
+        }
+        try (var journal = new AuditJournal(file)) {
+            journal.append(entry(3));
+        }
+
+        assertEquals(List.of(entry(1), entry(2), entry(3)), AuditJournal.read(file));
+    }
+
+    @Test
+    @DisplayName("The journal grows beyond its first chunk")
+    void severalChunks() throws Exception {
+        var file = folder.resolve("audit.journal");
+        int count = AuditJournal.CHUNK_RECORDS * 2 + 10;
+
+        try (var journal = new AuditJournal(file)) {
+            for (int i = 0; i < count; i++)
+                journal.append(entry(i));
+        }
+
+        var entries = AuditJournal.read(file);
+        assertEquals(count, entries.size());
+        assertEquals(entry(0), entries.get(0));
+        assertEquals(entry(count - 1), entries.get(count - 1));
+    }
+
+    @Test
+    @DisplayName("Entries appended from several threads are all recorded")
+    void concurrentAppends() throws Exception {
+        var file = folder.resolve("audit.journal");
+        int threads = 8;
+        int perThread = 1000;
+
+        try (var journal = new AuditJournal(file); var executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread;
+                executor.submit(() -> {
+                    for (int i = first; i < first + perThread; i++)
+                        journal.append(entry(i));
+                    return null;
+                });
+            }
+        }
+
+        var solutions = new HashSet<String>();
+        AuditJournal.scan(file, entry -> solutions.add(entry.solution()));
+        assertEquals(threads * perThread, solutions.size());
+    }
+
+    @Test
+    @DisplayName("Long names are truncated without splitting a character")
+    void truncation() throws Exception {
+        var file = folder.resolve("audit.journal");
+        var longGroup = "ñ".repeat(100); // Two bytes per character
+
+        try (var journal = new AuditJournal(file)) {
+            journal.append(new AuditEntry(NOW, "org", longGroup, "solution", Action.GRANT, true, Duration.ZERO));
+        }
+
+        var group = AuditJournal.read(file).get(0).group();
+        assertTrue(longGroup.startsWith(group));
+        assertFalse(group.isEmpty());
+    }
+
+    @Test
+    @DisplayName("A journal that is open cannot be appended to by another one")
+    void locked() throws Exception {
+        var file = folder.resolve("audit.journal");
+
+        try (var journal = new AuditJournal(file); var other = new AuditJournal(file)) {
+            journal.append(entry(1));
+
+            var error = assertThrows(java.io.IOException.class, () -> other.append(entry(2)));
+            assertTrue(error.getMessage().contains("being written by another process"), error.getMessage());
+            assertEquals(List.of(entry(1)), AuditJournal.read(file)); // Reading does not need the lock
+        }
+        try (var journal = new AuditJournal(file)) {
+            journal.append(entry(2)); // Released on close
+        }
+
+        assertEquals(List.of(entry(1), entry(2)), AuditJournal.read(file));
+    }
+
+    @Test
+    @DisplayName("A file that is not a journal is rejected")
+    void notAJournal() throws Exception {
+        var file = folder.resolve("other.txt");
+        Files.writeString(file, "x".repeat(1000));
+
+        assertThrows(java.io.IOException.class, () -> AuditJournal.read(file));
+    }
+
+    private static AuditEntry entry(int index) {
+        return new AuditEntry(NOW.plusMillis(index), "org", "group-" + (index % 7), "solution-" + index,
+                index % 2 == 0 ? Action.GRANT : Action.REVOKE, true, Duration.ofMillis(index % 500));
+    }
+}
@@ -0,0 +1,64 @@
+package es.uniovi.raul.solutions.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import es.uniovi.raul.solutions.batch.AccessChange.Operation;
+import es.uniovi.raul.solutions.course.Group;
+import es.uniovi.raul.solutions.github.GithubApi;
+
+class BatchRunnerTest {
+
+    @Test
+    @DisplayName("All changes are applied, failures are collected and do not stop the batch")
+    void appliesAndCollectsFailures() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        doThrow(new GithubApi.RejectedOperationException("Repository 'b-solution' does not exist."))
+                .when(api).grantAccess("org", "b-solution", "g1");
+        var group = new Group("G1", "g1", Optional.empty(), api, "org", repository -> true);
+
+        var ok1 = new AccessChange(group, "a-solution", Operation.GRANT);
+        var failing = new AccessChange(group, "b-solution", Operation.GRANT);
+        var ok2 = new AccessChange(group, "c-solution", Operation.REVOKE);
+
+        var result = new BatchRunner().run(List.of(ok1, failing, ok2));
+
+        assertEquals(List.of(ok1, ok2), result.applied());
+        assertEquals(1, result.failed().size());
+        assertEquals(failing, result.failed().get(0).change());
+        assertFalse(result.isSuccessful());
+        verify(api).grantAccess("org", "a-solution", "g1");
+        verify(api).revokeAccess("org", "c-solution", "g1");
+    }
+
+    @Test
+    @DisplayName("The number of changes in flight never exceeds the parallelism")
+    void limitsParallelism() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return null;
+        }).when(api).grantAccess(anyString(), anyString(), anyString());
+        var group = new Group("G1", "g1", Optional.empty(), api, "org", repository -> true);
+
+        var changes = new ArrayList<AccessChange>();
+        for (int i = 0; i < 20; i++)
+            changes.add(new AccessChange(group, "s" + i + "-solution", Operation.GRANT));
+
+        var result = new BatchRunner(3, 1000).run(changes);
+
+        assertTrue(result.isSuccessful());
+        assertTrue(maxInFlight.get() <= 3);
+        verify(api, times(20)).grantAccess(anyString(), anyString(), anyString());
+    }
+}
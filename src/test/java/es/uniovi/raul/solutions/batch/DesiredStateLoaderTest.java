@@ -0,0 +1,52 @@
+package es.uniovi.raul.solutions.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.uniovi.raul.solutions.batch.DesiredStateLoader.InvalidDesiredState;
+
+class DesiredStateLoaderTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private Path writeCsv(String content) throws IOException {
+        Path file = tempDir.resolve("visibility.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    @DisplayName("Loads groups with their visible solutions, including groups with none")
+    void loadsGroups() throws Exception {
+        Path csv = writeCsv(String.join(System.lineSeparator(),
+                "# group, visible solutions...",
+                "G1, a-solution, b-solution",
+                "",
+                "G2",
+                "G3, c-solution,"));
+
+        var desired = DesiredStateLoader.load(csv.toString());
+
+        assertEquals(List.of("G1", "G2", "G3"), List.copyOf(desired.keySet()));
+        assertEquals(Set.of("a-solution", "b-solution"), desired.get("G1"));
+        assertEquals(Set.of(), desired.get("G2"));
+        assertEquals(Set.of("c-solution"), desired.get("G3"));
+    }
+
+    @Test
+    @DisplayName("Duplicated groups are rejected")
+    void duplicatedGroups() throws Exception {
+        Path csv = writeCsv(String.join(System.lineSeparator(), "G1, a-solution", "G1, b-solution"));
+
+        var exception = assertThrows(InvalidDesiredState.class, () -> DesiredStateLoader.load(csv.toString()));
+        assertTrue(exception.getMessage().contains("more than once"));
+    }
+}
@@ -0,0 +1,109 @@
+package es.uniovi.raul.solutions.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.uniovi.raul.solutions.batch.AccessChange.Operation;
+import es.uniovi.raul.solutions.batch.IntentLog.Intent;
+import es.uniovi.raul.solutions.course.Group;
+import es.uniovi.raul.solutions.github.GithubApi;
+
+class IntentLogTest {
+
+    @TempDir
+    Path folder;
+
+    private GithubApi api;
+    private Group group;
+
+    @BeforeEach
+    void setUp() {
+        api = mock(GithubApi.class);
+        group = new Group("G1", "g1", Optional.empty(), api, "org", repository -> true);
+    }
+
+    @Test
+    @DisplayName("Resuming a log returns the changes that were not done")
+    void pendingChanges() throws Exception {
+        var file = folder.resolve("sync.log");
+        var a = new AccessChange(group, "a-solution", Operation.GRANT);
+        var b = new AccessChange(group, "b-solution", Operation.REVOKE);
+        var c = new AccessChange(group, "c-solution", Operation.GRANT);
+
+        try (var log = IntentLog.start(file, List.of(a, b, c))) {
+            log.completed(b);
+        }
+
+        try (var log = IntentLog.resume(file)) {
+            assertEquals(List.of(new Intent(Operation.GRANT, "G1", "a-solution"),
+                    new Intent(Operation.GRANT, "G1", "c-solution")), log.pending());
+            log.completed(c);
+        }
+
+        try (var log = IntentLog.resume(file)) {
+            assertEquals(List.of(new Intent(Operation.GRANT, "G1", "a-solution")), log.pending());
+        }
+    }
+
+    @Test
+    @DisplayName("The log is deleted when all its changes are done")
+    void deletedWhenDone() throws Exception {
+        var file = folder.resolve("sync.log");
+        var a = new AccessChange(group, "a-solution", Operation.GRANT);
+
+        try (var log = IntentLog.start(file, List.of(a))) {
+            assertTrue(Files.exists(file), "The intents are written before the batch starts");
+            log.completed(a);
+        }
+
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    @DisplayName("A line that was left half written is ignored")
+    void tornLine() throws Exception {
+        var file = folder.resolve("sync.log");
+        var a = new AccessChange(group, "a-solution", Operation.GRANT);
+        try (var log = IntentLog.start(file, List.of(a))) {
+            // Interrupted before finishing
+        }
+        Files.writeString(file, "DONE\tGRANT\tG1", StandardOpenOption.APPEND);
+
+        try (var log = IntentLog.resume(file)) {
+            assertEquals(List.of(new Intent(Operation.GRANT, "G1", "a-solution")), log.pending());
+        }
+    }
+
+    @Test
+    @DisplayName("A file that is not an intent log is rejected")
+    void notALog() throws Exception {
+        var file = folder.resolve("other.txt");
+        Files.writeString(file, "something else\n");
+
+        assertThrows(java.io.IOException.class, () -> IntentLog.resume(file));
+    }
+
+    @Test
+    @DisplayName("The batch runner records only the changes that were applied")
+    void runnerRecordsApplied() throws Exception {
+        var file = folder.resolve("sync.log");
+        doThrow(new GithubApi.GithubApiException("Network error")).when(api).grantAccess("org", "b-solution", "g1");
+        var changes = new ArrayList<AccessChange>();
+        for (var solution : List.of("a-solution", "b-solution", "c-solution"))
+            changes.add(new AccessChange(group, solution, Operation.GRANT));
+
+        try (var log = IntentLog.start(file, changes)) {
+            new BatchRunner(4, 1000).run(changes, log);
+        }
+
+        try (var log = IntentLog.resume(file)) {
+            assertEquals(List.of(new Intent(Operation.GRANT, "G1", "b-solution")), log.pending());
+        }
+    }
+}
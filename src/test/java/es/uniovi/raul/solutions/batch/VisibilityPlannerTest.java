@@ -0,0 +1,84 @@
+package es.uniovi.raul.solutions.batch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import es.uniovi.raul.solutions.batch.AccessChange.Operation;
+import es.uniovi.raul.solutions.batch.DesiredStateLoader.InvalidDesiredState;
+import es.uniovi.raul.solutions.course.*;
+import es.uniovi.raul.solutions.github.GithubApi;
+
+class VisibilityPlannerTest {
+
+    private final GithubApi api = mock(GithubApi.class);
+
+    private Group group(String name, String... accessible) throws Exception {
+        var slug = name.toLowerCase();
+        when(api.fetchRepositoriesForTeam("org", slug))
+                .thenReturn(Arrays.stream(accessible).map(s -> "org/" + s).toList());
+        return new Group(name, slug, Optional.empty(), api, "org", repository -> true);
+    }
+
+    @Test
+    @DisplayName("Only the differences between the desired and the actual state are planned")
+    void minimalDiff() throws Exception {
+        var g1 = group("G1", "a-solution");
+        var g2 = group("G2", "a-solution", "b-solution");
+        var g3 = group("G3", "a-solution");
+        var course = new Course(List.of(g1, g2, g3), List.of("a-solution", "b-solution", "c-solution"));
+
+        var changes = VisibilityPlanner.plan(course, Map.of(
+                "G1", Set.of("a-solution", "b-solution"),
+                "G2", Set.of("b-solution")));
+
+        assertEquals(List.of(
+                new AccessChange(g1, "b-solution", Operation.GRANT),
+                new AccessChange(g2, "a-solution", Operation.REVOKE)), changes);
+
+        // G3 is not in the desired state, so it is not even loaded
+        verify(api, never()).fetchRepositoriesForTeam("org", "g3");
+    }
+
+    @Test
+    @DisplayName("No changes are planned when the state already matches")
+    void nothingToDo() throws Exception {
+        var course = new Course(List.of(group("G1", "a-solution")), List.of("a-solution", "b-solution"));
+
+        assertTrue(VisibilityPlanner.plan(course, Map.of("G1", Set.of("a-solution"))).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Unknown groups or solutions are rejected before calling GitHub")
+    void unknownNames() throws Exception {
+        var course = new Course(List.of(group("G1")), List.of("a-solution"));
+
+        assertThrows(InvalidDesiredState.class,
+                () -> VisibilityPlanner.plan(course, Map.of("G9", Set.of())));
+        assertThrows(InvalidDesiredState.class,
+                () -> VisibilityPlanner.plan(course, Map.of("G1", Set.of("z-solution"))));
+        verify(api, never()).fetchRepositoriesForTeam(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Toggling shows a solution to the groups that lack it, or hides it if all of them have it")
+    void toggleSeveralGroups() throws Exception {
+        var g1 = group("G1", "a-solution", "b-solution");
+        var g2 = group("G2", "a-solution");
+        var g3 = group("G3", "a-solution");
+        var course = new Course(List.of(g1, g2, g3), List.of("a-solution", "b-solution"));
+
+        var changes = VisibilityPlanner.toggle(course, List.of(g1, g2, g3), List.of("a-solution", "b-solution"));
+
+        assertEquals(List.of(
+                new AccessChange(g1, "a-solution", Operation.REVOKE),
+                new AccessChange(g2, "a-solution", Operation.REVOKE),
+                new AccessChange(g3, "a-solution", Operation.REVOKE),
+                new AccessChange(g2, "b-solution", Operation.GRANT),
+                new AccessChange(g3, "b-solution", Operation.GRANT)), changes);
+    }
+}
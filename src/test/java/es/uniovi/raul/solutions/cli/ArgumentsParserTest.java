@@ -0,0 +1,41 @@
+package es.uniovi.raul.solutions.cli;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+
+class ArgumentsParserTest {
+
+    private static Optional<Arguments> parse(String... args) {
+        var ignored = new PrintStream(OutputStream.nullOutputStream());
+        return ArgumentsParser.parse(args, ignored, ignored);
+    }
+
+    @Test
+    @DisplayName("The organizations are trimmed and repeated ones are removed")
+    void organizations() {
+        var arguments = parse("-t", "token", "-o", "org1, org2,org1");
+
+        assertEquals(List.of("org1", "org2"), arguments.orElseThrow().organizations);
+    }
+
+    @Test
+    @DisplayName("An empty organization name is rejected")
+    void emptyOrganization() {
+        assertTrue(parse("-t", "token", "-o", "org1,,org2").isEmpty());
+        assertTrue(parse("-t", "token", "-o", "org1,").isEmpty());
+        assertTrue(parse("-t", "token", "-o", "org1, ").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Only one mode can be chosen")
+    void exclusiveModes() {
+        assertTrue(parse("-t", "token", "-o", "org", "--matrix").isPresent());
+        assertTrue(parse("-t", "token", "-o", "org", "--matrix", "--session").isEmpty());
+        assertTrue(parse("-t", "token", "-o", "org", "--serve", "8080", "--sync", "visibility.csv").isEmpty());
+        assertTrue(parse("-t", "token", "-o", "org", "--resume", "--history").isEmpty());
+    }
+}
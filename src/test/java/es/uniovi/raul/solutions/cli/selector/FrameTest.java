@@ -0,0 +1,65 @@
+package es.uniovi.raul.solutions.cli.selector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.ExternalTerminal;
+import org.junit.jupiter.api.*;
+
+class FrameTest {
+
+    private ByteArrayOutputStream output;
+    private Terminal terminal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        output = new ByteArrayOutputStream();
+        terminal = new ExternalTerminal("test", "xterm", new ByteArrayInputStream(new byte[0]), output,
+                StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        terminal.close();
+    }
+
+    @Test
+    @DisplayName("Nothing is written to the terminal until the frame is flushed")
+    void writtenOnFlush() {
+        var frame = new Frame(terminal);
+
+        frame.hideCursor().print("option 1").clearRestOfLine().moveUp().showCursor();
+        assertEquals("", written());
+
+        frame.flush();
+        assertEquals("\033[?25loption 1\033[K\033[A\033[?25h", written());
+    }
+
+    @Test
+    @DisplayName("Moving up several lines is a single parameterized movement")
+    void parameterizedMoveUp() {
+        var frame = new Frame(terminal);
+
+        frame.moveUp(12).moveUp(0).flush();
+
+        assertEquals("\033[12A", written());
+    }
+
+    @Test
+    @DisplayName("Each flush starts an empty frame")
+    void emptyAfterFlush() {
+        var frame = new Frame(terminal);
+
+        frame.print("first").flush();
+        frame.print("second").flush();
+
+        assertEquals("firstsecond", written());
+    }
+
+    private String written() {
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
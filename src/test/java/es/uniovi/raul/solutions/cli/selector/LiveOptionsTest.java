@@ -0,0 +1,52 @@
+package es.uniovi.raul.solutions.cli.selector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.jline.terminal.impl.ExternalTerminal;
+import org.junit.jupiter.api.*;
+
+class LiveOptionsTest {
+
+    @Test
+    @DisplayName("Each change of an option is a new version, until the options are complete")
+    void versions() {
+        var options = new LiveOptions(List.of("a [loading]", "b [loading]"));
+        long initial = options.version();
+
+        options.set(0, "a [hidden]");
+        options.set(0, "a [hidden]"); // Same text: not a change
+        assertEquals(initial + 1, options.version());
+        assertEquals(List.of("a [hidden]", "b [loading]"), options.snapshot());
+
+        options.complete();
+        assertTrue(options.isComplete());
+        assertThrows(IllegalStateException.class, () -> options.set(1, "b [hidden]"));
+    }
+
+    @Test
+    @DisplayName("Updating the options keeps the filter and the selected option")
+    void updateKeepsFilterAndSelection() throws IOException {
+        try (var terminal = new ExternalTerminal("test", "xterm", new ByteArrayInputStream(new byte[0]),
+                new ByteArrayOutputStream(), StandardCharsets.UTF_8)) {
+
+            var area = new OptionsArea(new Frame(terminal),
+                    List.of("alpha [loading]", "beta [loading]", "gamma [loading]"));
+            area.setFilter("a");
+            area.increaseSelectedIndex(); // beta
+
+            area.setOptions(List.of("alpha [hidden]", "beta [accessible]", "gamma [hidden]"));
+
+            assertEquals("a", area.getFilter());
+            assertEquals("beta [accessible]", area.getSelectedOption());
+
+            // If the selected option no longer matches the filter, the first one that does is selected
+            area.setFilter("loading");
+            area.setOptions(List.of("alpha [hidden]", "beta [accessible]", "gamma [loading]"));
+            assertEquals("gamma [loading]", area.getSelectedOption());
+        }
+    }
+}
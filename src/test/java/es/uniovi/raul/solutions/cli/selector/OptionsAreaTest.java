@@ -0,0 +1,67 @@
+package es.uniovi.raul.solutions.cli.selector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.jline.terminal.Terminal;
+import org.jline.terminal.impl.ExternalTerminal;
+import org.junit.jupiter.api.*;
+
+class OptionsAreaTest {
+
+    private Terminal terminal;
+    private OptionsArea area;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        terminal = new ExternalTerminal("test", "xterm", new ByteArrayInputStream(new byte[0]),
+                new ByteArrayOutputStream(), StandardCharsets.UTF_8);
+        area = new OptionsArea(new Frame(terminal), List.of("G1", "G2", "L1", "L2"), true);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        terminal.close();
+    }
+
+    @Test
+    @DisplayName("Without marks, the option under the cursor is the selection")
+    void noMarks() {
+        area.increaseSelectedIndex();
+
+        assertEquals(new TreeSet<>(Set.of(1)), area.getMarkedIndexes());
+        assertFalse(area.hasMarkedOptions());
+    }
+
+    @Test
+    @DisplayName("Marks are toggled one by one and kept when the filter changes")
+    void toggleMarks() {
+        area.toggleMarkOfSelected();
+        area.increaseSelectedIndex();
+        area.toggleMarkOfSelected();
+        area.toggleMarkOfSelected();
+        area.addToFilter('L');
+        area.toggleMarkOfSelected();
+
+        assertEquals(new TreeSet<>(Set.of(0, 2)), area.getMarkedIndexes());
+        assertEquals(List.of("G1", "L1"), area.getMarkedOptions());
+    }
+
+    @Test
+    @DisplayName("All the filtered options are marked at once, and unmarked if they already were")
+    void toggleFiltered() {
+        area.addToFilter('G');
+        area.toggleMarkOfFiltered();
+        assertEquals(new TreeSet<>(Set.of(0, 1)), area.getMarkedIndexes());
+
+        area.removeLastCharFromFilter();
+        area.toggleMarkOfFiltered();
+        assertEquals(new TreeSet<>(Set.of(0, 1, 2, 3)), area.getMarkedIndexes());
+
+        area.toggleMarkOfFiltered();
+        assertFalse(area.hasMarkedOptions());
+    }
+}
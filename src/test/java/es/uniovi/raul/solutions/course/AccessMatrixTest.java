@@ -0,0 +1,94 @@
+package es.uniovi.raul.solutions.course;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import es.uniovi.raul.solutions.course.naming.RegexSolutionDetector;
+import es.uniovi.raul.solutions.github.GithubApi;
+
+class AccessMatrixTest {
+
+    @Test
+    @DisplayName("accessMatrix loads every group and marks the solutions each one can see")
+    void matrixMarksAccess() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "g1")).thenReturn(List.of("org/b-solution", "org/notes"));
+        when(api.fetchRepositoriesForTeam("org", "g2")).thenReturn(List.of("org/a-solution", "org/b-solution"));
+
+        var detector = new RegexSolutionDetector(".*solution$");
+        var g1 = new Group("G1", "g1", Optional.empty(), api, "org", detector);
+        var g2 = new Group("G2", "g2", Optional.empty(), api, "org", detector);
+        var course = new Course(List.of(g1, g2), List.of("b-solution", "a-solution"));
+
+        var matrix = course.accessMatrix();
+
+        assertEquals(List.of("G1", "G2"), matrix.groups());
+        assertEquals(List.of("a-solution", "b-solution"), matrix.solutions()); // Sorted
+        assertFalse(matrix.hasAccess(0, 0));
+        assertTrue(matrix.hasAccess(0, 1));
+        assertTrue(matrix.hasAccess(1, 0));
+        assertTrue(matrix.hasAccess(1, 1));
+
+        assertEquals(String.join("\r\n",
+                "solution,G1,G2",
+                "a-solution,hidden,accessible",
+                "b-solution,accessible,accessible",
+                ""), matrix.toCsv());
+
+        var table = matrix.toTable().lines().toList();
+        assertEquals(3, table.size());
+        assertTrue(table.get(1).startsWith("a-solution"));
+        assertTrue(table.get(1).matches("a-solution\\s+\\.\\s+X\\s*"));
+
+        // Each team was fetched only once
+        verify(api, times(1)).fetchRepositoriesForTeam("org", "g1");
+        verify(api, times(1)).fetchRepositoriesForTeam("org", "g2");
+    }
+
+    @Test
+    @DisplayName("accessMatrix handles 100 groups x 200 solutions quickly")
+    void largeMatrix() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        var solutions = IntStream.range(0, 200).mapToObj(i -> "matrix-" + i + "-solution").toList();
+
+        // Group i has access to the first i solutions
+        var groups = new ArrayList<Group>();
+        for (int i = 0; i < 100; i++) {
+            var slug = "team-" + i;
+            when(api.fetchRepositoriesForTeam("org", slug))
+                    .thenReturn(solutions.subList(0, i).stream().map(s -> "org/" + s).toList());
+            groups.add(new Group("G" + i, slug, Optional.empty(), api, "org", repository -> true));
+        }
+        var course = new Course(groups, solutions);
+
+        var matrix = assertTimeoutPreemptively(Duration.ofSeconds(5), course::accessMatrix);
+
+        var sortedSolutions = matrix.solutions();
+        for (int group = 0; group < 100; group++)
+            for (int solution = 0; solution < 200; solution++) {
+                boolean expected = solutions.indexOf(sortedSolutions.get(solution)) < group;
+                assertEquals(expected, matrix.hasAccess(group, solution));
+            }
+    }
+
+    @Test
+    @DisplayName("Errors loading a group are propagated")
+    void errorsArePropagated() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "g1"))
+                .thenThrow(new GithubApi.RejectedOperationException("Team 'g1' does not exist."));
+
+        var course = new Course(List.of(new Group("G1", "g1", Optional.empty(), api, "org", r -> true)),
+                List.of("a-solution"));
+
+        var exception = assertThrows(GithubApi.RejectedOperationException.class, course::accessMatrix);
+        assertEquals("Team 'g1' does not exist.", exception.getMessage());
+    }
+}
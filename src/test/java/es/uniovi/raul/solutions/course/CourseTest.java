@@ -53,6 +53,24 @@ class CourseTest {
         assertEquals(List.of("katas-solution", "lab1-solution"), sols);
     }
 
+    @Test
+    @DisplayName("Courses with the same groups and solutions are equal")
+    void valueSemantics() {
+        GithubApi api = mock(GithubApi.class);
+        SolutionsDetectionStrategy detector = mock(SolutionsDetectionStrategy.class);
+        var group = new Group("A1", "a1", Optional.empty(), api, "org", detector);
+
+        var course = new Course(List.of(group), List.of("katas-solution", "lab1-solution"));
+        var same = new Course(List.of(group), List.of("katas-solution", "lab1-solution"));
+        var other = new Course(List.of(group), List.of("katas-solution"));
+
+        assertEquals(course, same);
+        assertEquals(course.hashCode(), same.hashCode());
+        assertNotEquals(course, other);
+        assertNotEquals(course, Course.combine(Map.of("org", course)));
+        assertTrue(course.toString().endsWith("solutions=[katas-solution, lab1-solution]]"), course.toString());
+    }
+
     @Test
     @DisplayName("Null checks in Course constructor")
     void courseNullChecks() {
@@ -99,4 +117,29 @@ class CourseTest {
         assertTrue(groups.stream().anyMatch(group -> group.name().equals("B2")));
     }
 
+    @Test
+    @DisplayName("A combined course has the groups of all the organizations, each one with its own solutions")
+    void combinedCourse() {
+        GithubApi api = mock(GithubApi.class);
+        SolutionsDetectionStrategy detector = mock(SolutionsDetectionStrategy.class);
+
+        Group mathG1 = new Group("math:G1", "g1", Optional.empty(), api, "math", detector);
+        Group physicsG1 = new Group("physics:G1", "g1", Optional.empty(), api, "physics", detector);
+        var math = new Course(List.of(mathG1), List.of("sum-solution", "shared-solution"));
+        var physics = new Course(List.of(physicsG1), List.of("gravity-solution", "shared-solution"));
+
+        var linked = new LinkedHashMap<String, Course>();
+        linked.put("math", math);
+        linked.put("physics", physics);
+        var course = Course.combine(linked);
+
+        assertEquals(List.of(mathG1, physicsG1), course.groups());
+        assertEquals(List.of("sum-solution", "shared-solution", "gravity-solution"), course.solutions());
+        assertEquals(List.of("sum-solution", "shared-solution"), course.solutionsFor(mathG1));
+        assertEquals(List.of("gravity-solution", "shared-solution"), course.solutionsFor(physicsG1));
+        assertTrue(course.hasSolution(physicsG1, "gravity-solution"));
+        assertFalse(course.hasSolution(mathG1, "gravity-solution"));
+        assertEquals(Optional.of(physicsG1), course.findGroup("physics:G1"));
+    }
+
 }
@@ -0,0 +1,209 @@
+package es.uniovi.raul.solutions.course;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import es.uniovi.raul.solutions.github.GithubApi;
+
+/**
+ * Stress tests for the use of a {@link Group} from several threads.
+ */
+class GroupConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    // Runs the task in many threads, releasing all of them at the same time
+    private static void runConcurrently(Callable<?> task) throws Exception {
+        var start = new CountDownLatch(1);
+        var futures = new ArrayList<Future<?>>();
+        try (var executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int i = 0; i < THREADS; i++)
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            start.countDown();
+            for (var future : futures)
+                future.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @RepeatedTest(20)
+    @DisplayName("Concurrent first reads share a single fetch")
+    void singleFlightLoading() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        var fetches = new AtomicInteger();
+        when(api.fetchRepositoriesForTeam("org", "slug")).thenAnswer(invocation -> {
+            fetches.incrementAndGet();
+            Thread.sleep(20); // Let the other threads arrive while the fetch is in flight
+            return List.of("org/stress-a-solution", "org/stress-b-solution");
+        });
+        var group = new Group("G", "slug", Optional.empty(), api, "org", repository -> true);
+
+        runConcurrently(() -> {
+            assertTrue(group.hasAccessTo("stress-a-solution"));
+            assertEquals(2, group.getAccesibleSolutions().size());
+            return null;
+        });
+
+        assertEquals(1, fetches.get());
+    }
+
+    @RepeatedTest(20)
+    @DisplayName("Concurrent grants are never lost")
+    void concurrentGrants() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "slug")).thenReturn(List.of());
+        var group = new Group("G", "slug", Optional.empty(), api, "org", repository -> true);
+        group.getAccesibleSolutions();
+
+        var next = new AtomicInteger();
+        runConcurrently(() -> {
+            group.grantAccess("stress-" + next.getAndIncrement() + "-solution");
+            return null;
+        });
+
+        assertEquals(THREADS, group.getAccesibleSolutions().size());
+        for (int i = 0; i < THREADS; i++)
+            assertTrue(group.hasAccessTo("stress-" + i + "-solution"));
+        verify(api, times(1)).fetchRepositoriesForTeam("org", "slug");
+    }
+
+    @Test
+    @DisplayName("A failed fetch is reported to every waiting thread and retried by the next call")
+    void failedFetchIsShared() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        var fetches = new AtomicInteger();
+        when(api.fetchRepositoriesForTeam("org", "slug")).thenAnswer(invocation -> {
+            if (fetches.incrementAndGet() == 1) {
+                Thread.sleep(50);
+                throw new GithubApi.RejectedOperationException("Temporary failure");
+            }
+            return List.of("org/stress-a-solution");
+        });
+        var group = new Group("G", "slug", Optional.empty(), api, "org", repository -> true);
+
+        var failures = new AtomicInteger();
+        runConcurrently(() -> {
+            try {
+                group.getAccesibleSolutions();
+            } catch (GithubApi.RejectedOperationException e) {
+                failures.incrementAndGet();
+            }
+            return null;
+        });
+
+        assertTrue(failures.get() >= 1);
+        assertTrue(group.hasAccessTo("stress-a-solution"));
+    }
+
+    @RepeatedTest(10)
+    @DisplayName("A grant made while the first fetch is in flight is not lost")
+    void grantDuringFetch() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        var granted = new CopyOnWriteArrayList<String>();
+        var fetchStarted = new CountDownLatch(1);
+        when(api.fetchRepositoriesForTeam("org", "slug")).thenAnswer(invocation -> {
+            var snapshot = List.copyOf(granted);
+            fetchStarted.countDown();
+            Thread.sleep(30);
+            return snapshot.stream().map(s -> "org/" + s).toList();
+        });
+        doAnswer(invocation -> granted.add(invocation.getArgument(1)))
+                .when(api).grantAccess(anyString(), anyString(), anyString());
+        var group = new Group("G", "slug", Optional.empty(), api, "org", repository -> true);
+
+        var reader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return group.getAccesibleSolutions();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        fetchStarted.await();
+        group.grantAccess("stress-late-solution");
+
+        reader.get(10, TimeUnit.SECONDS);
+        assertTrue(group.hasAccessTo("stress-late-solution"));
+    }
+
+    @RepeatedTest(10)
+    @DisplayName("A verification fetch in flight does not undo the grants made meanwhile")
+    void grantDuringVerification() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        var granted = new CopyOnWriteArrayList<String>();
+        var verifying = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(api.fetchRepositoriesForTeam("org", "slug")).thenAnswer(invocation -> {
+            var snapshot = List.copyOf(granted);
+            if (snapshot.size() == 1 && verifying.getCount() > 0) { // The verification after the first grant
+                verifying.countDown();
+                release.await();
+            }
+            return snapshot.stream().map(s -> "org/" + s).toList();
+        });
+        doAnswer(invocation -> granted.add(invocation.getArgument(1)))
+                .when(api).grantAccess(anyString(), anyString(), anyString());
+        var group = new Group("G", "slug", Optional.empty(), api, "org", repository -> true);
+        group.getAccesibleSolutions();
+        group.setWriteVerification(true);
+
+        group.grantAccess("stress-a-solution");
+        verifying.await(10, TimeUnit.SECONDS);
+        group.setWriteVerification(false);
+        group.grantAccess("stress-b-solution");
+        release.countDown();
+
+        Thread.sleep(50);
+        assertTrue(group.hasAccessTo("stress-a-solution"));
+        assertTrue(group.hasAccessTo("stress-b-solution"));
+    }
+
+    @Test
+    @DisplayName("If the thread that is fetching is interrupted, the threads waiting for it fetch them again")
+    void interruptedFetchIsRetried() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        var fetches = new AtomicInteger();
+        var firstFetchStarted = new CountDownLatch(1);
+        when(api.fetchRepositoriesForTeam("org", "slug")).thenAnswer(invocation -> {
+            if (fetches.incrementAndGet() == 1) {
+                firstFetchStarted.countDown();
+                new CountDownLatch(1).await(); // Until interrupted
+            }
+            return List.of("org/stress-a-solution");
+        });
+        var group = new Group("G", "slug", Optional.empty(), api, "org", repository -> true);
+
+        var owner = new CompletableFuture<Throwable>();
+        var ownerThread = Thread.ofVirtual().start(() -> {
+            try {
+                group.getAccesibleSolutions();
+                owner.complete(null);
+            } catch (Exception e) {
+                owner.complete(e);
+            }
+        });
+        firstFetchStarted.await(10, TimeUnit.SECONDS);
+        var waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return group.getAccesibleSolutions();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        Thread.sleep(50); // Waiting for the first fetch
+        ownerThread.interrupt();
+
+        assertInstanceOf(InterruptedException.class, owner.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of("stress-a-solution"), waiter.get(10, TimeUnit.SECONDS));
+        assertEquals(2, fetches.get());
+    }
+}
@@ -10,7 +10,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import es.uniovi.raul.solutions.course.naming.SolutionsDetectionStrategy;
-import es.uniovi.raul.solutions.github.GithubApi;
+import es.uniovi.raul.solutions.github.*;
 
 class GroupTest {
 
@@ -92,14 +92,13 @@ class GroupTest {
     }
 
     @Test
-    @DisplayName("Group.grantAccess delegates to GithubApi and invalidates cache")
-    void grantAccessDelegatesAndInvalidatesCache() throws Exception {
+    @DisplayName("Group.grantAccess delegates to GithubApi and updates the cache without refetching")
+    void grantAccessDelegatesAndUpdatesCache() throws Exception {
         GithubApi api = mock(GithubApi.class);
         SolutionsDetectionStrategy identifier = mock(SolutionsDetectionStrategy.class);
 
         when(api.fetchRepositoriesForTeam("org", "team-slug"))
-                .thenReturn(List.of("org/solution1"))
-                .thenReturn(List.of("org/solution1", "org/solution2"));
+                .thenReturn(List.of("org/solution1"));
         when(identifier.isSolutionRepository(anyString())).thenReturn(true);
 
         Group group = new Group("G1", "team-slug", Optional.empty(), api, "org", identifier);
@@ -111,20 +110,20 @@ class GroupTest {
         group.grantAccess("solution2");
         verify(api).grantAccess("org", "solution2", "team-slug");
 
-        // Cache should be invalidated and refetch on next call
+        // Cache is updated in place: no refetch
         assertEquals(List.of("solution1", "solution2"), group.getAccesibleSolutions());
-        verify(api, times(2)).fetchRepositoriesForTeam("org", "team-slug");
+        assertTrue(group.hasAccessTo("solution2"));
+        verify(api, times(1)).fetchRepositoriesForTeam("org", "team-slug");
     }
 
     @Test
-    @DisplayName("Group.revokeAccess delegates to GithubApi and invalidates cache")
-    void revokeAccessDelegatesAndInvalidatesCache() throws Exception {
+    @DisplayName("Group.revokeAccess delegates to GithubApi and updates the cache without refetching")
+    void revokeAccessDelegatesAndUpdatesCache() throws Exception {
         GithubApi api = mock(GithubApi.class);
         SolutionsDetectionStrategy identifier = mock(SolutionsDetectionStrategy.class);
 
         when(api.fetchRepositoriesForTeam("org", "team-slug"))
-                .thenReturn(List.of("org/solution1", "org/solution2"))
-                .thenReturn(List.of("org/solution1"));
+                .thenReturn(List.of("org/solution1", "org/solution2"));
         when(identifier.isSolutionRepository(anyString())).thenReturn(true);
 
         Group group = new Group("G1", "team-slug", Optional.empty(), api, "org", identifier);
@@ -136,8 +135,80 @@ class GroupTest {
         group.revokeAccess("solution2");
         verify(api).revokeAccess("org", "solution2", "team-slug");
 
-        // Cache should be invalidated and refetch on next call
+        // Cache is updated in place: no refetch
         assertEquals(List.of("solution1"), group.getAccesibleSolutions());
+        assertFalse(group.hasAccessTo("solution2"));
+        verify(api, times(1)).fetchRepositoriesForTeam("org", "team-slug");
+    }
+
+    @Test
+    @DisplayName("In a dry run, a grant does not change the cached solutions nor the next hidden one")
+    void dryRunGrant() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "team-slug")).thenReturn(List.of("org/solution1"));
+
+        Group group = new Group("G1", "team-slug", Optional.empty(), new DryRunGithubApi(api), "org",
+                repository -> true);
+        var order = new ReleaseOrder(new int[] { RepositoryNames.intern("solution1"),
+                RepositoryNames.intern("solution2") });
+        assertEquals(Optional.of("solution2"), group.nextHiddenSolution(order));
+
+        group.grantAccess("solution2");
+        verify(api, never()).grantAccess(anyString(), anyString(), anyString());
+
+        assertFalse(group.hasAccessTo("solution2"));
+        assertEquals(Optional.of("solution2"), group.nextHiddenSolution(order));
+    }
+
+    @Test
+    @DisplayName("A grant before loading does not load the solutions; they are fetched when needed")
+    void grantBeforeLoading() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "team-slug")).thenReturn(List.of("org/solution1"));
+
+        Group group = new Group("G1", "team-slug", Optional.empty(), api, "org", repository -> true);
+
+        group.grantAccess("solution1");
+        verify(api, never()).fetchRepositoriesForTeam(anyString(), anyString());
+
+        assertTrue(group.hasAccessTo("solution1"));
+        verify(api, times(1)).fetchRepositoriesForTeam("org", "team-slug");
+    }
+
+    @Test
+    @DisplayName("With write verification, the cache is replaced by a background fetch after a change")
+    void writeVerification() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "team-slug"))
+                .thenReturn(List.of("org/solution1"))
+                .thenReturn(List.of("org/solution1", "org/solution2", "org/solution3"));
+
+        Group group = new Group("G1", "team-slug", Optional.empty(), api, "org", repository -> true);
+        group.setWriteVerification(true);
+        group.getAccesibleSolutions();
+
+        group.grantAccess("solution2");
+
+        verify(api, timeout(2000).times(2)).fetchRepositoriesForTeam("org", "team-slug");
+        for (int i = 0; i < 100 && !group.hasAccessTo("solution3"); i++)
+            Thread.sleep(10);
+        assertEquals(List.of("solution1", "solution2", "solution3"), group.getAccesibleSolutions());
+    }
+
+    @Test
+    @DisplayName("refresh discards the cache")
+    void refreshDiscardsCache() throws Exception {
+        GithubApi api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "team-slug"))
+                .thenReturn(List.of("org/solution1"))
+                .thenReturn(List.of());
+
+        Group group = new Group("G1", "team-slug", Optional.empty(), api, "org", repository -> true);
+        assertTrue(group.hasAccessTo("solution1"));
+
+        group.refresh();
+
+        assertFalse(group.hasAccessTo("solution1"));
         verify(api, times(2)).fetchRepositoriesForTeam("org", "team-slug");
     }
 
@@ -0,0 +1,74 @@
+package es.uniovi.raul.solutions.course;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import es.uniovi.raul.solutions.github.GithubApi;
+
+class PrefetchSchedulerTest {
+
+    private static final LocalTime NOW = LocalTime.of(10, 30);
+
+    private final GithubApi api = mock(GithubApi.class);
+
+    private Group group(String name, Schedule schedule) {
+        return new Group(name, name.toLowerCase(), Optional.ofNullable(schedule), api, "org", repository -> true);
+    }
+
+    @Test
+    @DisplayName("Groups are ordered: in session now, later today by start time, and then the rest")
+    void priorityOrder() {
+        var noSchedule = group("G1", null);
+        var tomorrow = group("G2", new Schedule("tuesday", LocalTime.of(9, 0), 120));
+        var lateToday = group("G3", new Schedule("monday", LocalTime.of(17, 0), 120));
+        var now = group("G4", new Schedule("monday", LocalTime.of(10, 0), 120));
+        var soonToday = group("G5", new Schedule("monday", LocalTime.of(12, 0), 120));
+        var earlierToday = group("G6", new Schedule("monday", LocalTime.of(8, 0), 60));
+
+        var ordered = PrefetchScheduler.byPriority(
+                List.of(noSchedule, tomorrow, lateToday, now, soonToday, earlierToday), "monday", NOW);
+
+        assertEquals(List.of(now, soonToday, lateToday, noSchedule, tomorrow, earlierToday), ordered);
+    }
+
+    @Test
+    @DisplayName("The group in session is loaded before any other group is requested")
+    void inSessionFirst() throws Exception {
+        var requested = new ConcurrentLinkedQueue<String>();
+        var inSessionLoaded = new CountDownLatch(1);
+        var allRequested = new CountDownLatch(4);
+        var requestedTooSoon = new ConcurrentLinkedQueue<String>();
+        when(api.fetchRepositoriesForTeam(eq("org"), anyString())).thenAnswer(invocation -> {
+            String slug = invocation.getArgument(1);
+            requested.add(slug);
+            if (slug.equals("g3")) {
+                Thread.sleep(100);
+                inSessionLoaded.countDown();
+            } else if (inSessionLoaded.getCount() != 0) {
+                requestedTooSoon.add(slug);
+            }
+            allRequested.countDown();
+            return List.of("org/a-solution");
+        });
+
+        var groups = List.of(group("G1", null), group("G2", null),
+                group("G3", new Schedule("monday", LocalTime.of(10, 0), 120)), group("G4", null));
+
+        try (var prefetcher = new PrefetchScheduler(4)) {
+            prefetcher.start(groups, "monday", NOW);
+            assertTrue(allRequested.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals("g3", requested.peek());
+        assertTrue(requestedTooSoon.isEmpty(), "Requested before the group in session was loaded");
+        assertTrue(groups.get(3).hasAccessTo("a-solution")); // Already loaded: no more requests
+        verify(api, times(4)).fetchRepositoriesForTeam(eq("org"), anyString());
+    }
+}
@@ -0,0 +1,75 @@
+package es.uniovi.raul.solutions.course;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import es.uniovi.raul.solutions.github.GithubApi;
+
+class ReleaseOrderTest {
+
+    @Test
+    @DisplayName("Numbers in the names are compared by their value")
+    void naturalOrder() {
+        var names = List.of("week10-solution", "week2-solution", "Week1-solution", "week02b-solution",
+                "intro-solution", "week100-solution");
+
+        var order = new ReleaseOrder(ids(names));
+
+        assertEquals(List.of("intro-solution", "Week1-solution", "week2-solution", "week02b-solution",
+                "week10-solution", "week100-solution"), order.names());
+    }
+
+    @Test
+    @DisplayName("Numbers longer than a long are compared correctly")
+    void longNumbers() {
+        var sorted = new ArrayList<>(List.of("s99999999999999999999-solution", "s100000000000000000000-solution"));
+        sorted.sort(ReleaseOrder.NATURAL);
+
+        assertEquals("s99999999999999999999-solution", sorted.get(0));
+    }
+
+    @Test
+    @DisplayName("Sorting a list of names gives the same order as the comparator")
+    void sortNames() {
+        var names = List.of("week10-solution", "intro-solution", "week2-solution", "Week1-solution");
+        var sorted = new ArrayList<>(names);
+        sorted.sort(ReleaseOrder.NATURAL);
+
+        assertEquals(sorted, ReleaseOrder.sort(names));
+    }
+
+    @Test
+    @DisplayName("The next hidden solution follows grants and revokes without fetching again")
+    void nextHiddenSolution() throws Exception {
+        var api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam("org", "g1")).thenReturn(List.of("org/week1-solution"));
+        var group = new Group("G1", "g1", Optional.empty(), api, "org", repository -> true);
+        var course = new Course(List.of(group),
+                List.of("week10-solution", "week3-solution", "week2-solution", "week1-solution"));
+
+        assertEquals(Optional.of("week2-solution"), course.nextHiddenSolution(group));
+
+        group.grantAccess("week2-solution");
+        assertEquals(Optional.of("week3-solution"), course.nextHiddenSolution(group));
+
+        group.grantAccess("week10-solution"); // Out of order: the next one is still week3
+        assertEquals(Optional.of("week3-solution"), course.nextHiddenSolution(group));
+
+        group.grantAccess("week3-solution"); // Skips week10, which is already visible
+        assertEquals(Optional.empty(), course.nextHiddenSolution(group));
+
+        group.revokeAccess("week2-solution");
+        assertEquals(Optional.of("week2-solution"), course.nextHiddenSolution(group));
+
+        verify(api, times(1)).fetchRepositoriesForTeam("org", "g1");
+    }
+
+    private static int[] ids(List<String> names) {
+        return names.stream().mapToInt(RepositoryNames::intern).toArray();
+    }
+}
@@ -0,0 +1,56 @@
+package es.uniovi.raul.solutions.course;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class RepositoryNamesTest {
+
+    @Test
+    @DisplayName("The same name always gets the same ID and the name is stored only once")
+    void internIsIdempotent() {
+        int id = RepositoryNames.intern("names-test-solution");
+
+        assertEquals(id, RepositoryNames.intern(new String("names-test-solution")));
+        assertEquals(id, RepositoryNames.find("names-test-solution"));
+        assertSame(RepositoryNames.name(id), RepositoryNames.name(RepositoryNames.intern("names-test-solution")));
+    }
+
+    @Test
+    @DisplayName("Interning a range gives the same ID as interning the substring")
+    void internRange() {
+        String fullName = "org/names-range-solution";
+        int id = RepositoryNames.intern(fullName, 4, fullName.length());
+
+        assertEquals("names-range-solution", RepositoryNames.name(id));
+        assertEquals(id, RepositoryNames.intern("names-range-solution"));
+    }
+
+    @Test
+    @DisplayName("Unknown names are not found and invalid IDs are rejected")
+    void unknownNames() {
+        assertEquals(-1, RepositoryNames.find("never-interned-names-test"));
+        assertThrows(IllegalArgumentException.class, () -> RepositoryNames.name(-1));
+        assertThrows(IllegalArgumentException.class, () -> RepositoryNames.name(Integer.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> RepositoryNames.intern(null));
+    }
+
+    @Test
+    @DisplayName("IDs survive the growth of the dictionary")
+    void manyNames() {
+        var ids = new HashMap<String, Integer>();
+        for (int i = 0; i < 5000; i++) {
+            String name = "names-growth-" + i + "-solution";
+            ids.put(name, RepositoryNames.intern(name));
+        }
+
+        ids.forEach((name, id) -> {
+            assertEquals(id, RepositoryNames.find(name));
+            assertEquals(name, RepositoryNames.name(id));
+        });
+        assertEquals(5000, new HashSet<>(ids.values()).size());
+    }
+}
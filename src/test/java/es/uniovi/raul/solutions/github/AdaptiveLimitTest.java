@@ -0,0 +1,170 @@
+package es.uniovi.raul.solutions.github;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.*;
+
+import es.uniovi.raul.solutions.github.AdaptiveLimit.Outcome;
+import es.uniovi.raul.solutions.github.GithubApi.*;
+import es.uniovi.raul.solutions.monitoring.Metrics;
+
+class AdaptiveLimitTest {
+
+    private static void request(AdaptiveLimit limits, String organization, Outcome outcome)
+            throws InterruptedException {
+        limits.release(organization, "grantAccess", limits.acquire(organization, false), outcome);
+    }
+
+    @Test
+    @DisplayName("The limit grows by about one for each limit's worth of successful requests")
+    void additiveIncrease() throws Exception {
+        var limits = new AdaptiveLimit(4, 64);
+
+        for (int i = 0; i < 4; i++)
+            request(limits, "org", Outcome.SUCCEEDED);
+        assertEquals(4, limits.limit("org")); // 4.92
+        request(limits, "org", Outcome.SUCCEEDED);
+        assertEquals(5, limits.limit("org"));
+
+        for (int i = 0; i < 100; i++)
+            request(limits, "org", Outcome.SUCCEEDED);
+        assertTrue(limits.limit("org") > 10);
+        assertTrue(Metrics.registry().toText().contains("solutions_github_concurrency_limit{organization=\"org\"}"));
+    }
+
+    @Test
+    @DisplayName("A rate limit halves the limit, down to one")
+    void multiplicativeDecrease() throws Exception {
+        var limits = new AdaptiveLimit(8, 64);
+
+        request(limits, "org", Outcome.RATE_LIMITED);
+        assertEquals(4, limits.limit("org"));
+
+        for (int i = 0; i < 3; i++)
+            request(limits, "org", Outcome.RATE_LIMITED);
+        assertEquals(1, limits.limit("org"));
+    }
+
+    @Test
+    @DisplayName("Other errors do not change the limit, and each organization has its own")
+    void otherErrorsAndOrganizations() throws Exception {
+        var limits = new AdaptiveLimit(8, 64);
+
+        request(limits, "org", Outcome.FAILED);
+        request(limits, "other", Outcome.RATE_LIMITED);
+
+        assertEquals(8, limits.limit("org"));
+        assertEquals(4, limits.limit("other"));
+    }
+
+    @Test
+    @DisplayName("No more requests than the limit run at the same time, and those running cut it only once")
+    void concurrentRequests() throws Exception {
+        var limits = new AdaptiveLimit(4, 64);
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 4; i++)
+                executor.submit(() -> {
+                    long start = limits.acquire("org", false);
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(100);
+                    running.decrementAndGet();
+                    limits.release("org", "fetchRepositoriesForTeam", start, Outcome.RATE_LIMITED);
+                    return null;
+                });
+        }
+
+        assertEquals(4, maxRunning.get());
+        assertEquals(2, limits.limit("org"));
+    }
+
+    @Test
+    @DisplayName("A request much slower than the usual ones of its operation halves the limit")
+    void latencySpike() throws Exception {
+        var limits = new AdaptiveLimit(8, 64);
+
+        for (int i = 0; i < 9; i++) {
+            long start = limits.acquire("org", false);
+            Thread.sleep(10);
+            limits.release("org", "fetchTeams", start, Outcome.SUCCEEDED);
+        }
+        assertEquals(9, limits.limit("org"));
+
+        long start = limits.acquire("org", false);
+        Thread.sleep(300);
+        limits.release("org", "fetchTeams", start, Outcome.SUCCEEDED);
+        assertEquals(4, limits.limit("org"));
+    }
+
+    @Test
+    @DisplayName("Each page of a listing is limited and measured as a request of its own")
+    void pagesAreRequests() throws Exception {
+        try (var github = new GithubSimulator("org")) {
+            for (int i = 0; i < 250; i++)
+                github.addRepositories("repo-" + i);
+            var limits = new AdaptiveLimit(4, 64);
+            var api = new GithubApiImpl("test-token", github.url(), HedgingPolicy.NONE, Duration.ofSeconds(5),
+                    limits);
+
+            assertEquals(250, api.fetchAllRepositories("org").size());
+
+            assertEquals(3, github.requestCount("GET", "/orgs/org/repos"));
+            assertEquals(4, limits.limit("org")); // Three successes: 4.71
+        }
+    }
+
+    @Test
+    @DisplayName("GitHub responses for exceeding a rate limit are thrown as RateLimitedException and cut the limit")
+    void rateLimitResponses() throws Exception {
+        try (var github = new GithubSimulator("org").addRepositories("a-solution").addTeam("group G1", "g1")) {
+            var limits = new AdaptiveLimit(8, 64);
+            var api = new GithubApiImpl("test-token", github.url(), HedgingPolicy.NONE, Duration.ofSeconds(5),
+                    limits);
+
+            github.rateLimitNextRequests(1, 429);
+            var error = assertThrows(RateLimitedException.class, () -> api.grantAccess("org", "a-solution", "g1"));
+            assertEquals(Optional.of(Duration.ofSeconds(60)), error.retryAfter());
+            assertEquals(4, limits.limit("org"));
+
+            github.rateLimitNextRequests(1, 403);
+            assertThrows(RateLimitedException.class, () -> api.fetchTeams("org"));
+
+            assertEquals(1, api.fetchTeams("org").size());
+        }
+    }
+
+    @Test
+    @DisplayName("Background requests use half of the limit and let the waiting requests go first")
+    void backgroundRequests() throws Exception {
+        var limits = new AdaptiveLimit(4, 4);
+        var background = new ArrayList<Long>();
+        background.add(limits.acquire("org", true));
+        background.add(limits.acquire("org", true));
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var third = executor.submit(() -> limits.acquire("org", true));
+            Thread.sleep(50);
+            assertFalse(third.isDone());
+
+            long first = limits.acquire("org", false);
+            long second = limits.acquire("org", false);
+            var waiting = executor.submit(() -> limits.acquire("org", false));
+            Thread.sleep(50);
+
+            limits.release("org", "fetchRepositoriesForTeam", background.get(0), Outcome.FAILED);
+            waiting.get(5, TimeUnit.SECONDS);
+            assertFalse(third.isDone());
+
+            for (long start : List.of(background.get(1), first, second, waiting.get()))
+                limits.release("org", "fetchRepositoriesForTeam", start, Outcome.FAILED);
+            third.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
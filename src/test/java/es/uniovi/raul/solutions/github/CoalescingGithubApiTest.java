@@ -0,0 +1,142 @@
+package es.uniovi.raul.solutions.github;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.*;
+
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+
+class CoalescingGithubApiTest {
+
+    private static final int CALLERS = 20;
+
+    private GithubSimulator github;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        github = new GithubSimulator("org")
+                .addRepositories("a-solution", "b-solution")
+                .addTeam("group G1", "g1", "a-solution")
+                .addTeam("group G2", "g2");
+        github.setLatency(path -> Duration.ofMillis(300));
+    }
+
+    @AfterEach
+    void tearDown() {
+        github.close();
+    }
+
+    // Starts all the calls at the same time and returns their results
+    private static <T> List<T> concurrently(Callable<T> call) throws Exception {
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<T>>();
+            for (int i = 0; i < CALLERS; i++)
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            start.countDown();
+
+            var results = new ArrayList<T>();
+            for (var future : futures)
+                results.add(future.get());
+            return results;
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent identical requests share a single HTTP exchange")
+    void identicalRequestsShareOneExchange() throws Exception {
+        var api = new CoalescingGithubApi(new GithubApiImpl("test-token", github.url()));
+
+        var teamRepositories = concurrently(() -> api.fetchRepositoriesForTeam("org", "g1"));
+        var allRepositories = concurrently(() -> api.fetchAllRepositories("org"));
+
+        assertEquals(1, github.requestCount("GET", "/orgs/org/teams/g1/repos"));
+        assertEquals(1, github.requestCount("GET", "/orgs/org/repos"));
+        teamRepositories.forEach(repositories -> assertEquals(List.of("org/a-solution"), repositories));
+        allRepositories.forEach(repositories -> assertEquals(2, repositories.size()));
+    }
+
+    @Test
+    @DisplayName("Different requests are not shared and finished ones are not cached")
+    void differentOrLaterRequestsAreSent() throws Exception {
+        var api = new CoalescingGithubApi(new GithubApiImpl("test-token", github.url()));
+
+        concurrently(() -> api.fetchRepositoriesForTeam("org", "g1"));
+        concurrently(() -> api.fetchRepositoriesForTeam("org", "g2"));
+        api.fetchRepositoriesForTeam("org", "g1");
+
+        assertEquals(2, github.requestCount("GET", "/orgs/org/teams/g1/repos"));
+        assertEquals(1, github.requestCount("GET", "/orgs/org/teams/g2/repos"));
+    }
+
+    @Test
+    @DisplayName("The error of a shared request is thrown to all the callers")
+    void errorsAreShared() throws Exception {
+        var delegate = mock(GithubApi.class);
+        var calls = new AtomicInteger();
+        when(delegate.fetchTeams("org")).thenAnswer(invocation -> {
+            calls.incrementAndGet();
+            Thread.sleep(300);
+            throw new GithubApiException("Not found");
+        });
+        var api = new CoalescingGithubApi(delegate);
+
+        var errors = concurrently(() -> assertThrows(GithubApiException.class, () -> api.fetchTeams("org")));
+
+        assertEquals(1, calls.get());
+        errors.forEach(error -> assertEquals("Not found", error.getMessage()));
+    }
+
+    @Test
+    @DisplayName("If the caller downloading a shared request is interrupted, one of those waiting downloads it")
+    void interruptedOwnerIsReplaced() throws Exception {
+        var delegate = mock(GithubApi.class);
+        var started = new CountDownLatch(1);
+        var calls = new AtomicInteger();
+        when(delegate.fetchTeams("org")).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 1) {
+                started.countDown();
+                Thread.sleep(10_000);
+            }
+            return List.of(new Team("group G1", "g1"));
+        });
+        var api = new CoalescingGithubApi(delegate);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var owner = executor.submit(() -> api.fetchTeams("org"));
+            started.await();
+            var waiter = executor.submit(() -> api.fetchTeams("org"));
+            Thread.sleep(100); // The waiter joins the download
+            owner.cancel(true);
+
+            assertEquals(1, waiter.get(5, TimeUnit.SECONDS).size());
+        }
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("A grant is delegated and later reads of that team do not join a request started before it")
+    void writeDetachesInFlightRead() throws Exception {
+        var api = new CoalescingGithubApi(new GithubApiImpl("test-token", github.url()));
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var before = executor.submit(() -> api.fetchRepositoriesForTeam("org", "g2"));
+            Thread.sleep(100); // The read is in flight
+            github.setLatency(path -> Duration.ZERO);
+            api.grantAccess("org", "b-solution", "g2");
+
+            assertEquals(List.of("org/b-solution"), api.fetchRepositoriesForTeam("org", "g2"));
+            before.get();
+        }
+        assertEquals(2, github.requestCount("GET", "/orgs/org/teams/g2/repos"));
+    }
+}
@@ -189,4 +189,18 @@ class GithubApiImplTest {
 
         assertEquals("Failed to fetch data. Status: 503.", result);
     }
+
+    //# Tests for the parsing of responses -------------------------------
+
+    @Test
+    @DisplayName("A repository of a team without a name is rejected as an unexpected format")
+    void emptyRepositoryName() throws Exception {
+        try (var github = new GithubSimulator("org").addTeam("group G1", "g1", "")) {
+            var simulated = new GithubApiImpl("test-token", github.url());
+
+            var error = assertThrows(GithubApi.UnexpectedFormatException.class,
+                    () -> simulated.fetchRepositoriesForTeam("org", "g1"));
+            assertTrue(error.getMessage().contains("'organization/repository'"), error.getMessage());
+        }
+    }
 }
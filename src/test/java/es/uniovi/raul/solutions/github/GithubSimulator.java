@@ -0,0 +1,203 @@
+package es.uniovi.raul.solutions.github;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.sun.net.httpserver.*;
+
+/**
+ * In-memory simulator of the parts of the GitHub REST API used by {@link GithubApiImpl}, for tests.
+ *
+ * Supports pagination (per_page and page parameters with a Link header) and can inject latency
+ * in the responses.
+ */
+public final class GithubSimulator implements AutoCloseable {
+
+    private static final Pattern TEAMS = Pattern.compile("/orgs/([^/]+)/teams");
+    private static final Pattern REPOS = Pattern.compile("/orgs/([^/]+)/repos");
+    private static final Pattern TEAM_REPOS = Pattern.compile("/orgs/([^/]+)/teams/([^/]+)/repos");
+    private static final Pattern TEAM_REPO = Pattern.compile("/orgs/([^/]+)/teams/([^/]+)/repos/([^/]+)/([^/]+)");
+
+    private final HttpServer server;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<String, Team> teams = new ConcurrentHashMap<>(); // slug -> team
+    private final Set<String> repositories = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<String>> access = new ConcurrentHashMap<>(); // slug -> repositories
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>(); // "METHOD path" -> count
+    private volatile Function<String, Duration> latency = path -> Duration.ZERO;
+    private final AtomicInteger rateLimitedRequests = new AtomicInteger();
+    private volatile int rateLimitStatus;
+
+    private final String organization;
+
+    public GithubSimulator(String organization) throws IOException {
+        this.organization = organization;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public GithubSimulator addTeam(String name, String slug, String... accessibleRepositories) {
+        teams.put(slug, new Team(name, slug));
+        access.put(slug, ConcurrentHashMap.newKeySet());
+        access.get(slug).addAll(List.of(accessibleRepositories));
+        return this;
+    }
+
+    public GithubSimulator addRepositories(String... names) {
+        repositories.addAll(List.of(names));
+        return this;
+    }
+
+    public Set<String> accessOf(String slug) {
+        return Set.copyOf(access.get(slug));
+    }
+
+    /**
+     * Number of requests received with the given method whose path starts with the given prefix.
+     */
+    public int requestCount(String method, String pathPrefix) {
+        return requests.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(method + " " + pathPrefix))
+                .mapToInt(entry -> entry.getValue().get())
+                .sum();
+    }
+
+    /**
+     * Sets the delay of each response, given the path of the request.
+     */
+    public void setLatency(Function<String, Duration> latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Rejects the next requests as exceeding a secondary rate limit, with the given status (403 or 429).
+     */
+    public void rateLimitNextRequests(int count, int status) {
+        this.rateLimitStatus = status;
+        rateLimitedRequests.set(count);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    //# Request handling -----------------------------------
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var method = exchange.getRequestMethod();
+            var path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(method + " " + path, key -> new AtomicInteger()).incrementAndGet();
+
+            Thread.sleep(latency.apply(path).toMillis());
+
+            if (rateLimitedRequests.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                exchange.getResponseHeaders().add("Retry-After", "60");
+                send(exchange, rateLimitStatus, "{\"message\":\"You have exceeded a secondary rate limit.\"}");
+                return;
+            }
+
+            if (!"Bearer test-token".equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                send(exchange, 401, "{\"message\":\"Bad credentials\"}");
+                return;
+            }
+
+            Matcher matcher;
+            if ((matcher = TEAM_REPO.matcher(path)).matches() && isKnown(matcher.group(1), matcher.group(2)))
+                changeAccess(exchange, method, matcher.group(2), matcher.group(4));
+            else if ((matcher = TEAM_REPOS.matcher(path)).matches() && isKnown(matcher.group(1), matcher.group(2)))
+                sendPage(exchange, access.get(matcher.group(2)).stream().sorted()
+                        .map(repository -> organization + "/" + repository).toList(), "full_name");
+            else if ((matcher = TEAMS.matcher(path)).matches() && organization.equals(matcher.group(1)))
+                sendTeams(exchange);
+            else if ((matcher = REPOS.matcher(path)).matches() && organization.equals(matcher.group(1)))
+                sendPage(exchange, repositories.stream().sorted().toList(), "name");
+            else
+                send(exchange, 404, "{\"message\":\"Not Found\"}");
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isKnown(String org, String slug) {
+        return organization.equals(org) && teams.containsKey(slug);
+    }
+
+    private void changeAccess(HttpExchange exchange, String method, String slug, String repository)
+            throws IOException {
+        if (!repositories.contains(repository)) {
+            send(exchange, 404, "{\"message\":\"Not Found\"}");
+            return;
+        }
+        switch (method) {
+            case "PUT" -> access.get(slug).add(repository);
+            case "DELETE" -> access.get(slug).remove(repository);
+            default -> {
+                send(exchange, 405, "{\"message\":\"Method not allowed\"}");
+                return;
+            }
+        }
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private void sendTeams(HttpExchange exchange) throws IOException {
+        ArrayNode array = mapper.createArrayNode();
+        teams.values().stream()
+                .sorted(Comparator.comparing(Team::slug))
+                .forEach(team -> array.addObject().put("name", team.displayName()).put("slug", team.slug()));
+        send(exchange, 200, array.toString());
+    }
+
+    private void sendPage(HttpExchange exchange, List<String> items, String field) throws IOException {
+        var query = parseQuery(exchange.getRequestURI().getQuery());
+        int perPage = Integer.parseInt(query.getOrDefault("per_page", "30"));
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+
+        int from = Math.min(items.size(), (page - 1) * perPage);
+        int to = Math.min(items.size(), from + perPage);
+        ArrayNode array = mapper.createArrayNode();
+        items.subList(from, to).forEach(item -> array.addObject().put(field, item));
+
+        if (to < items.size()) {
+            var next = url() + exchange.getRequestURI().getPath() + "?per_page=" + perPage + "&page=" + (page + 1);
+            exchange.getResponseHeaders().add("Link", "<" + next + ">; rel=\"next\"");
+        }
+        send(exchange, 200, array.toString());
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        var parameters = new HashMap<String, String>();
+        if (query != null)
+            for (var pair : query.split("&")) {
+                var parts = pair.split("=", 2);
+                parameters.put(parts[0], parts.length > 1 ? parts[1] : "");
+            }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+}
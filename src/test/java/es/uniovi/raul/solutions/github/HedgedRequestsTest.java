@@ -0,0 +1,125 @@
+package es.uniovi.raul.solutions.github;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests the hedged requests and timeouts of {@link GithubApiImpl} against a local GitHub simulator that delays
+ * some of its responses.
+ */
+class HedgedRequestsTest {
+
+    private static final Duration SLOW = Duration.ofSeconds(5);
+
+    private GithubSimulator github;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        github = new GithubSimulator("org")
+                .addRepositories("a-solution")
+                .addTeam("group G1", "g1", "a-solution");
+    }
+
+    @AfterEach
+    void tearDown() {
+        github.close();
+    }
+
+    // Only the first request is slow
+    private void slowFirstRequest() {
+        var requests = new AtomicInteger();
+        github.setLatency(path -> requests.getAndIncrement() == 0 ? SLOW : Duration.ZERO);
+    }
+
+    private GithubApiImpl api(HedgingPolicy hedging, Duration timeout) {
+        return new GithubApiImpl("test-token", github.url(), hedging, timeout);
+    }
+
+    @Test
+    @DisplayName("A slow GET is sent again and the first response wins")
+    void slowGetIsHedged() throws Exception {
+        slowFirstRequest();
+        var api = api(new HedgingPolicy(0.95, Duration.ofMillis(100), 0.05, 1), SLOW.multipliedBy(2));
+
+        long start = System.nanoTime();
+        assertEquals(List.of(new Team("group G1", "g1")), api.fetchTeams("org"));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+        assertEquals(2, github.requestCount("GET", "/orgs/org/teams"));
+    }
+
+    @Test
+    @DisplayName("Without budget left, the slow request is awaited instead of hedged")
+    void budgetLimitsHedges() throws Exception {
+        var api = api(new HedgingPolicy(0.95, Duration.ofMillis(100), 0.05, 1), SLOW.multipliedBy(2));
+        github.setLatency(path -> Duration.ofMillis(300));
+
+        for (int i = 0; i < 20; i++)
+            api.fetchRepositoriesForTeam("org", "g1");
+
+        // The initial hedge plus one for every 20 requests
+        assertTrue(github.requestCount("GET", "/orgs/org/teams/g1/repos") <= 20 + 2);
+    }
+
+    @Test
+    @DisplayName("The delay before hedging follows the latency of the previous requests")
+    void delayFollowsPercentile() {
+        var policy = new HedgingPolicy(0.9, Duration.ofSeconds(1), 0.05, 1);
+        assertEquals(Duration.ofSeconds(1).toNanos(), policy.delayNanos("fetchTeams"));
+
+        for (int i = 1; i <= 10; i++)
+            policy.completed("fetchTeams", Duration.ofMillis(100 * i).toNanos());
+
+        assertEquals(Duration.ofMillis(900).toNanos(), policy.delayNanos("fetchTeams"));
+        assertEquals(Duration.ofSeconds(1).toNanos(), policy.delayNanos("fetchAllRepositories"));
+    }
+
+    @Test
+    @DisplayName("Hedges are not sent once the budget is spent")
+    void budget() {
+        var policy = new HedgingPolicy(0.95, Duration.ofSeconds(1), 0.25, 1);
+
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+        for (int i = 0; i < 3; i++)
+            policy.completed("fetchTeams", 1);
+        assertFalse(policy.tryHedge());
+        policy.completed("fetchTeams", 1);
+        assertTrue(policy.tryHedge());
+    }
+
+    @Test
+    @DisplayName("Grants and revokes are never sent twice")
+    void writesAreNotHedged() throws Exception {
+        github.setLatency(path -> Duration.ofMillis(500));
+        var api = api(new HedgingPolicy(0.95, Duration.ofMillis(50), 0.05, 1), SLOW);
+
+        api.grantAccess("org", "a-solution", "g1");
+
+        assertEquals(1, github.requestCount("PUT", "/orgs/org/teams/g1/repos"));
+    }
+
+    @Test
+    @DisplayName("A request that takes longer than the timeout fails")
+    void timeout() {
+        slowFirstRequest();
+        var api = api(HedgingPolicy.NONE, Duration.ofMillis(200));
+
+        assertThrows(HttpTimeoutException.class, () -> api.fetchTeams("org"));
+    }
+
+    @Test
+    @DisplayName("A hedged request also fails if both requests time out")
+    void hedgedTimeout() {
+        github.setLatency(path -> SLOW);
+        var api = api(new HedgingPolicy(0.95, Duration.ofMillis(50), 0.05, 1), Duration.ofMillis(300));
+
+        assertThrows(HttpTimeoutException.class, () -> api.fetchAllRepositories("org"));
+    }
+}
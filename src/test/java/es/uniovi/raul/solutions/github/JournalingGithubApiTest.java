@@ -0,0 +1,64 @@
+package es.uniovi.raul.solutions.github;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.uniovi.raul.solutions.audit.AuditEntry.Action;
+import es.uniovi.raul.solutions.audit.AuditJournal;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+
+class JournalingGithubApiTest {
+
+    @TempDir
+    Path folder;
+
+    @Test
+    @DisplayName("Grants and revokes are delegated and recorded, successful or not")
+    void recordsChanges() throws Exception {
+        var file = folder.resolve("audit.journal");
+        var delegate = mock(GithubApi.class);
+        doThrow(new GithubApiException("Not found")).when(delegate).revokeAccess("org", "ex2-solution", "group-b");
+
+        try (var journal = new AuditJournal(file)) {
+            var api = new JournalingGithubApi(delegate, journal);
+            api.grantAccess("org", "ex1-solution", "group-a");
+            assertThrows(GithubApiException.class, () -> api.revokeAccess("org", "ex2-solution", "group-b"));
+        }
+
+        verify(delegate).grantAccess("org", "ex1-solution", "group-a");
+        var entries = AuditJournal.read(file);
+        assertEquals(2, entries.size());
+
+        var grant = entries.get(0);
+        assertEquals(Action.GRANT, grant.action());
+        assertEquals("org", grant.organization());
+        assertEquals("group-a", grant.group());
+        assertEquals("ex1-solution", grant.solution());
+        assertTrue(grant.successful());
+
+        var revoke = entries.get(1);
+        assertEquals(Action.REVOKE, revoke.action());
+        assertFalse(revoke.successful());
+    }
+
+    @Test
+    @DisplayName("Read operations are not recorded")
+    void readsNotRecorded() throws Exception {
+        var file = folder.resolve("audit.journal");
+        var delegate = mock(GithubApi.class);
+
+        try (var journal = new AuditJournal(file)) {
+            var api = new JournalingGithubApi(delegate, journal);
+            api.fetchTeams("org");
+            api.fetchRepositoriesForTeam("org", "group-a");
+        }
+
+        verify(delegate).fetchTeams("org");
+        assertTrue(AuditJournal.read(file).isEmpty());
+    }
+}
@@ -0,0 +1,164 @@
+package es.uniovi.raul.solutions.github;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.*;
+
+import es.uniovi.raul.solutions.github.GithubApi.*;
+
+class WriteBehindGithubApiTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(100);
+
+    private final GithubApi delegate = mock(GithubApi.class);
+    private WriteBehindGithubApi api;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        api.close();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Changes are sent after the window, concurrently and once each")
+    void sentAfterWindow() throws Exception {
+        api = new WriteBehindGithubApi(delegate, WINDOW, Duration.ofMillis(50));
+
+        for (var team : List.of("g1", "g2", "g3"))
+            api.grantAccess("org", "a-solution", team);
+        api.grantAccess("org", "a-solution", "g1");
+        verifyNoInteractions(delegate);
+
+        waitFor(() -> api.pendingChanges() == 0);
+        for (var team : List.of("g1", "g2", "g3"))
+            verify(delegate).grantAccess("org", "a-solution", team);
+    }
+
+    @Test
+    @DisplayName("A change undone within the window is not sent")
+    void undoneChangeIsNotSent() throws Exception {
+        api = new WriteBehindGithubApi(delegate, WINDOW, Duration.ofMillis(50));
+
+        api.grantAccess("org", "a-solution", "g1");
+        api.revokeAccess("org", "a-solution", "g1");
+        api.revokeAccess("org", "b-solution", "g1");
+        api.grantAccess("org", "b-solution", "g1");
+        api.grantAccess("org", "b-solution", "g1");
+
+        waitFor(() -> api.pendingChanges() == 0);
+        verify(delegate).grantAccess("org", "b-solution", "g1");
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    @DisplayName("Changes that fail for a network error are sent again when the connection returns")
+    void survivesOutage() throws Exception {
+        var online = new AtomicBoolean(false);
+        doAnswer(invocation -> {
+            if (!online.get())
+                throw new IOException("Network is unreachable");
+            return null;
+        }).when(delegate).grantAccess(anyString(), anyString(), anyString());
+        api = new WriteBehindGithubApi(delegate, WINDOW, Duration.ofMillis(50));
+
+        api.grantAccess("org", "a-solution", "g1");
+        api.grantAccess("org", "a-solution", "g2");
+        waitFor(() -> mockingDetails(delegate).getInvocations().size() >= 4); // Each one failed at least twice
+        assertEquals(2, api.pendingChanges());
+
+        online.set(true);
+        waitFor(() -> api.pendingChanges() == 0);
+    }
+
+    @Test
+    @DisplayName("Undoing a change that could not be sent sends the undoing one, as the failed one may be applied")
+    void undoFailedChange() throws Exception {
+        doThrow(new IOException("Network is unreachable")).when(delegate)
+                .grantAccess(anyString(), anyString(), anyString());
+        api = new WriteBehindGithubApi(delegate, WINDOW, Duration.ofSeconds(10));
+
+        api.grantAccess("org", "a-solution", "g1");
+        waitFor(() -> !mockingDetails(delegate).getInvocations().isEmpty());
+        api.revokeAccess("org", "a-solution", "g1");
+
+        waitFor(() -> api.pendingChanges() == 0);
+        verify(delegate).revokeAccess("org", "a-solution", "g1");
+    }
+
+    @Test
+    @DisplayName("A change rejected by GitHub is not sent again and is reported with the next change")
+    void rejectedChangeIsReported() throws Exception {
+        doThrow(new RejectedOperationException("Not found")).when(delegate)
+                .revokeAccess(anyString(), anyString(), anyString());
+        api = new WriteBehindGithubApi(delegate, WINDOW, Duration.ofMillis(50));
+
+        api.revokeAccess("org", "a-solution", "g1");
+
+        waitFor(() -> api.pendingChanges() == 0);
+        Thread.sleep(200);
+        verify(delegate, times(1)).revokeAccess("org", "a-solution", "g1");
+
+        var e = assertThrows(RejectedOperationException.class, () -> api.grantAccess("org", "b-solution", "g1"));
+        assertTrue(e.getMessage().contains("revoke team 'g1' access to 'org/a-solution': Not found"));
+        assertEquals(0, api.pendingChanges());
+        api.grantAccess("org", "b-solution", "g1"); // Reported once
+    }
+
+    @Test
+    @DisplayName("Closing fails listing the changes that could not be made")
+    void closeReportsUnmadeChanges() throws Exception {
+        doThrow(new IOException("Network is unreachable")).when(delegate)
+                .grantAccess(anyString(), anyString(), anyString());
+        doThrow(new RejectedOperationException("Not found")).when(delegate)
+                .revokeAccess(anyString(), anyString(), anyString());
+        api = new WriteBehindGithubApi(delegate, Duration.ofHours(1), Duration.ofMillis(10));
+
+        api.grantAccess("org", "a-solution", "g1");
+        api.revokeAccess("org", "b-solution", "g1");
+
+        var e = assertThrows(GithubApiException.class, api::close);
+        assertTrue(e.getMessage().startsWith("2 changes could not be made"));
+        assertTrue(e.getMessage().contains("grant team 'g1' access to 'org/a-solution': not sent"));
+        assertTrue(e.getMessage().contains("revoke team 'g1' access to 'org/b-solution': Not found"));
+    }
+
+    @Test
+    @DisplayName("The repositories of a team include its pending changes")
+    void readsIncludePendingChanges() throws Exception {
+        when(delegate.fetchRepositoriesForTeam("org", "g1")).thenReturn(List.of("org/a-solution"));
+        api = new WriteBehindGithubApi(delegate, Duration.ofHours(1));
+
+        api.revokeAccess("org", "a-solution", "g1");
+        api.grantAccess("org", "b-solution", "g1");
+        api.grantAccess("org", "c-solution", "g2");
+
+        assertEquals(List.of("org/b-solution"), api.fetchRepositoriesForTeam("org", "g1"));
+    }
+
+    @Test
+    @DisplayName("Closing sends the pending changes right away")
+    void closeSendsPendingChanges() throws Exception {
+        api = new WriteBehindGithubApi(delegate, Duration.ofHours(1));
+
+        api.grantAccess("org", "a-solution", "g1");
+        api.close();
+
+        verify(delegate).grantAccess("org", "a-solution", "g1");
+        assertThrows(IllegalStateException.class, () -> api.grantAccess("org", "a-solution", "g2"));
+    }
+}
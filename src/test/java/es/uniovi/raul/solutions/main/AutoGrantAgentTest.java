@@ -142,7 +142,7 @@ class AutoGrantAgentTest {
     }
 
     @Test
-    @DisplayName("guessGroup chooses unique scheduled group; guessSolution chooses lexicographically smallest not-yet-accessed")
+    @DisplayName("guessGroup chooses unique scheduled group; guessSolution chooses the first not-yet-accessed in release order")
     void guessers() throws Exception {
         Clock clock = fixedClock(2025, 8, 18, 10, 0); // Monday
         AutoGrantAgent agent = new AutoGrantAgent(clock, (m, a) -> true);
@@ -154,7 +154,7 @@ class AutoGrantAgentTest {
         assertTrue(agent.guessGroup(List.of(b, a)).isEmpty()); // two scheduled
         assertEquals("A", agent.guessGroup(List.of(a)).get().name());
 
-        var next = agent.guessSolution(a, List.of("a-solution", "b-solution"));
+        var next = agent.guessSolution(courseWithGroups(List.of(a), List.of("b-solution", "a-solution")), a);
         assertEquals(Optional.of("a-solution"), next);
     }
 }
@@ -0,0 +1,71 @@
+package es.uniovi.raul.solutions.main;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.List;
+
+import es.uniovi.raul.solutions.github.GithubSimulator;
+
+/**
+ * Training run that creates the class data sharing (AppCDS) archive used by the launchers to start faster.
+ *
+ * The JAR is run in a child JVM against a local {@link GithubSimulator}, so it loads the classes of a normal
+ * run (arguments, schedule, GitHub client, JSON, course and output) without touching a real organization.
+ * The classes loaded by the child are dumped to the archive when it exits.
+ *
+ * Run by the "cds" profile: {@code mvn -Pcds package}.
+ *
+ * <pre>
+ * Arguments: &lt;jar&gt; &lt;archive&gt;
+ * </pre>
+ */
+public final class CdsTraining {
+
+    private static final String ORGANIZATION = "training";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: CdsTraining <jar> <archive>");
+
+        var jar = Path.of(args[0]).toAbsolutePath();
+        var archive = Path.of(args[1]).toAbsolutePath();
+        Files.deleteIfExists(archive);
+
+        var workingDirectory = Files.createTempDirectory("solutions-cds");
+        var schedule = Files.writeString(workingDirectory.resolve("schedule.csv"), """
+                G1, monday, 10:00
+                G2, tuesday, 09:30, 120m
+                """);
+
+        try (var github = new GithubSimulator(ORGANIZATION)) {
+            github.addRepositories("01-factorial", "01-factorial-solution", "02-fibonacci-solution", "notes")
+                    .addTeam("group G1", "group-g1", "01-factorial-solution")
+                    .addTeam("group G2", "group-g2")
+                    .addTeam("teachers", "teachers");
+
+            var java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+            var process = new ProcessBuilder(List.of(java,
+                    "-XX:ArchiveClassesAtExit=" + archive,
+                    "-jar", jar.toString(),
+                    "-t", "test-token",
+                    "-o", ORGANIZATION,
+                    "-s", schedule.toString(),
+                    "--api-url", github.url(),
+                    "--dry-run",
+                    "--matrix"))
+                    .directory(workingDirectory.toFile())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+
+            int exitCode = process.waitFor();
+            if (exitCode != 0 || !Files.exists(archive))
+                throw new IllegalStateException("The training run failed with exit code " + exitCode);
+        } finally {
+            Files.deleteIfExists(schedule);
+            Files.deleteIfExists(workingDirectory);
+        }
+
+        System.out.println("Class data sharing archive created: " + archive);
+    }
+}
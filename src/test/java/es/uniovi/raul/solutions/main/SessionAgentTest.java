@@ -0,0 +1,99 @@
+package es.uniovi.raul.solutions.main;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+
+import es.uniovi.raul.solutions.course.*;
+import es.uniovi.raul.solutions.course.naming.SolutionsDetectionStrategy;
+import es.uniovi.raul.solutions.github.GithubApi;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import es.uniovi.raul.solutions.main.agents.SessionAgent;
+
+class SessionAgentTest {
+
+    private GithubApi api;
+    private Course course;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam(anyString(), anyString()))
+                .thenReturn(new ArrayList<>(List.of("s1-solution")));
+
+        SolutionsDetectionStrategy detector = mock(SolutionsDetectionStrategy.class);
+        when(detector.isSolutionRepository(anyString())).thenReturn(true);
+
+        var groups = List.of(
+                new Group("G1", "team-g1", Optional.empty(), api, "test-org", detector),
+                new Group("G2", "team-g2", Optional.empty(), api, "test-org", detector));
+        course = new Course(groups, List.of("s1-solution", "s2-solution", "s10-solution"));
+    }
+
+    private String run(String... commands) throws Exception {
+        var input = new BufferedReader(new StringReader(String.join("\n", commands) + "\n"));
+        var output = new ByteArrayOutputStream();
+        new SessionAgent(input, new PrintStream(output, true, StandardCharsets.UTF_8)).run(course);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Several commands reuse the access fetched by the first one")
+    void commandsReuseLoadedAccess() throws Exception {
+        var output = run("show G1", "grant G1 s2-solution", "revoke G1 s1-solution", "show G1", "quit");
+
+        verify(api).grantAccess("test-org", "s2-solution", "team-g1");
+        verify(api).revokeAccess("test-org", "s1-solution", "team-g1");
+        verify(api, times(1)).fetchRepositoriesForTeam("test-org", "team-g1");
+        assertTrue(output.contains("s1-solution [hidden]\ns2-solution [accessible]\ns10-solution [hidden]"), output);
+    }
+
+    @Test
+    @DisplayName("Refresh fetches the access of the group again")
+    void refreshFetchesAgain() throws Exception {
+        run("show G1", "refresh G1", "show G1");
+
+        verify(api, times(2)).fetchRepositoriesForTeam("test-org", "team-g1");
+    }
+
+    @Test
+    @DisplayName("Next shows the first hidden solution in release order")
+    void nextHiddenSolution() throws Exception {
+        var output = run("next G2");
+
+        assertTrue(output.contains("s2-solution"), output);
+        verify(api, never()).grantAccess(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Granting a solution the group can already access makes no call")
+    void grantAlreadyAccessible() throws Exception {
+        var output = run("grant G1 s1-solution");
+
+        assertTrue(output.contains("already has access"), output);
+        verify(api, never()).grantAccess(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Wrong commands and failed calls are reported and the session goes on")
+    void errorsDoNotEndTheSession() throws Exception {
+        doThrow(new GithubApiException("Server error")).when(api).grantAccess(anyString(), anyString(), anyString());
+        doThrow(new IllegalStateException("Closed")).when(api).revokeAccess(anyString(), anyString(), anyString());
+
+        var output = run("fly", "grant G3 s1-solution", "grant G1 unknown", "grant G1 s2-solution",
+                "revoke G2 s1-solution", "groups");
+
+        assertTrue(output.contains("Unknown command 'fly'"), output);
+        assertTrue(output.contains("There is no group 'G3'"), output);
+        assertTrue(output.contains("There is no solution 'unknown'"), output);
+        assertTrue(output.contains("[Error] Server error"), output);
+        assertTrue(output.contains("[Error] Closed"), output);
+        assertTrue(output.contains("G1\nG2\n"), output);
+    }
+}
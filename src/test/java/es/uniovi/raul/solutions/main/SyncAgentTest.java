@@ -0,0 +1,67 @@
+package es.uniovi.raul.solutions.main;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.uniovi.raul.solutions.batch.*;
+import es.uniovi.raul.solutions.batch.AccessChange.Operation;
+import es.uniovi.raul.solutions.course.*;
+import es.uniovi.raul.solutions.github.*;
+import es.uniovi.raul.solutions.main.agents.SyncAgent;
+
+class SyncAgentTest {
+
+    @TempDir
+    Path folder;
+
+    private GithubApi api;
+    private Course course;
+    private Path intentLogFile;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        api = mock(GithubApi.class);
+        when(api.fetchRepositoriesForTeam(anyString(), anyString())).thenReturn(List.of());
+        var group = new Group("G1", "g1", Optional.empty(), new DryRunGithubApi(api), "org", repository -> true);
+        course = new Course(List.of(group), List.of("a-solution", "b-solution"));
+
+        // An interrupted batch: the first change was done
+        intentLogFile = folder.resolve("sync.log");
+        var a = new AccessChange(group, "a-solution", Operation.GRANT);
+        var b = new AccessChange(group, "b-solution", Operation.GRANT);
+        try (var log = IntentLog.start(intentLogFile, List.of(a, b))) {
+            log.completed(a);
+        }
+    }
+
+    @Test
+    @DisplayName("A dry run of resuming leaves the interrupted batch to be resumed")
+    void dryRunResume() throws Exception {
+        var before = Files.readAllBytes(intentLogFile);
+
+        var agent = new SyncAgent((message, args) -> true, new BatchRunner(), intentLogFile, true);
+        assertTrue(agent.resume(course));
+
+        assertArrayEquals(before, Files.readAllBytes(intentLogFile));
+        verify(api, never()).grantAccess(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("A dry run of a sync does not replace the interrupted batch")
+    void dryRunSync() throws Exception {
+        var before = Files.readAllBytes(intentLogFile);
+
+        var agent = new SyncAgent((message, args) -> true, new BatchRunner(), intentLogFile, true);
+        assertTrue(agent.sync(course, Map.of("G1", Set.of("b-solution"))));
+
+        assertArrayEquals(before, Files.readAllBytes(intentLogFile));
+        verify(api, never()).grantAccess(anyString(), anyString(), anyString());
+    }
+}
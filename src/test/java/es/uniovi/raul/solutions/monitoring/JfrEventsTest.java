@@ -0,0 +1,98 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.*;
+
+import es.uniovi.raul.solutions.course.Group;
+import es.uniovi.raul.solutions.course.naming.RegexSolutionDetector;
+import es.uniovi.raul.solutions.github.*;
+import es.uniovi.raul.solutions.github.GithubApi.GithubApiException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.*;
+
+/**
+ * Checks the JFR events emitted by {@link GithubApiImpl} and {@link Group} against a local GitHub simulator.
+ */
+class JfrEventsTest {
+
+    private GithubSimulator github;
+    private Group group;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // More than 100 repositories, so the team repositories come in two pages
+        var repositories = IntStream.rangeClosed(1, 101).mapToObj(i -> "jfr-" + i + "-solution").toArray(String[]::new);
+        github = new GithubSimulator("org").addRepositories(repositories).addTeam("group G1", "g1", repositories);
+
+        var api = new GithubApiImpl("test-token", github.url());
+        group = new Group("G1", "g1", Optional.empty(), api, "org", new RegexSolutionDetector(".*solution$"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        github.close();
+    }
+
+    @Test
+    @DisplayName("Each GitHub request is recorded with its endpoint, page, status and size")
+    void githubRequests() throws Exception {
+        var events = record("es.uniovi.raul.solutions.GithubRequest", () -> group.getAccesibleSolutions());
+
+        assertEquals(2, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            var event = events.get(i);
+            assertEquals("fetchRepositoriesForTeam", event.getString("endpoint"));
+            assertEquals("GET", event.getString("method"));
+            assertEquals("/orgs/org/teams/g1/repos", event.getString("path"));
+            assertEquals(i + 1, event.getInt("page"));
+            assertEquals(200, event.getInt("status"));
+            assertTrue(event.getLong("bytes") > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Grants and revokes are recorded, including the failed ones")
+    void accessChanges() throws Exception {
+        var events = record("es.uniovi.raul.solutions.AccessChange", () -> {
+            group.revokeAccess("jfr-1-solution");
+            assertThrows(GithubApiException.class, () -> group.grantAccess("missing-solution"));
+        });
+
+        assertEquals(2, events.size());
+        assertEquals("revoke", events.get(0).getString("operation"));
+        assertEquals("jfr-1-solution", events.get(0).getString("solution"));
+        assertEquals("G1", events.get(0).getString("group"));
+        assertTrue(events.get(0).getBoolean("successful"));
+
+        assertEquals("grant", events.get(1).getString("operation"));
+        assertFalse(events.get(1).getBoolean("successful"));
+    }
+
+    private static List<RecordedEvent> record(String eventName, Work work) throws Exception {
+        var file = Files.createTempFile("events", ".jfr");
+        try (var recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals(eventName))
+                    .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        void run() throws Exception;
+    }
+}
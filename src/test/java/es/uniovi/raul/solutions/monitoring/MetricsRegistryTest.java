@@ -0,0 +1,80 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+class MetricsRegistryTest {
+
+    private MetricsRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new MetricsRegistry();
+    }
+
+    @Test
+    @DisplayName("Metrics with the same name and labels are the same metric")
+    void sameMetric() {
+        registry.counter("requests_total", "Requests", "endpoint", "a").increment();
+        registry.counter("requests_total", "Requests", "endpoint", "a").add(2);
+        registry.counter("requests_total", "Requests", "endpoint", "b").increment();
+
+        assertEquals(3, registry.counter("requests_total", "Requests", "endpoint", "a").value());
+        assertEquals(1, registry.counter("requests_total", "Requests", "endpoint", "b").value());
+    }
+
+    @Test
+    @DisplayName("Counters and gauges are exported in the text format, sorted by name")
+    void countersAndGauges() {
+        registry.gauge("rate_limit_remaining", "Remaining requests").set(4999);
+        registry.counter("requests_total", "Requests", "endpoint", "fetchTeams", "status", "200").add(2);
+
+        assertEquals("""
+                # HELP rate_limit_remaining Remaining requests
+                # TYPE rate_limit_remaining gauge
+                rate_limit_remaining 4999
+                # HELP requests_total Requests
+                # TYPE requests_total counter
+                requests_total{endpoint="fetchTeams",status="200"} 2
+                """, registry.toText());
+    }
+
+    @Test
+    @DisplayName("Histogram buckets are cumulative and end with +Inf")
+    void histogram() {
+        var histogram = registry.histogram("latency_seconds", "Latency", new double[] { 0.1, 1 }, "endpoint", "x");
+        histogram.observe(0.05);
+        histogram.observe(0.1);
+        histogram.observe(0.5);
+        histogram.observe(3);
+
+        assertEquals("""
+                # HELP latency_seconds Latency
+                # TYPE latency_seconds histogram
+                latency_seconds_bucket{endpoint="x",le="0.1"} 2
+                latency_seconds_bucket{endpoint="x",le="1"} 3
+                latency_seconds_bucket{endpoint="x",le="+Inf"} 4
+                latency_seconds_sum{endpoint="x"} 3.65
+                latency_seconds_count{endpoint="x"} 4
+                """, registry.toText());
+    }
+
+    @Test
+    @DisplayName("Label values are escaped")
+    void escaping() {
+        registry.counter("errors_total", "Errors", "message", "say \"hi\"\n").increment();
+
+        assertTrue(registry.toText().contains("errors_total{message=\"say \\\"hi\\\"\\n\"} 1"));
+    }
+
+    @Test
+    void invalidUse() {
+        registry.counter("metric", "A counter");
+
+        assertThrows(IllegalArgumentException.class, () -> registry.gauge("metric", "Now a gauge"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("invalid name", "Help"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("odd_labels", "Help", "endpoint"));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("metric", "A counter").add(-1));
+    }
+}
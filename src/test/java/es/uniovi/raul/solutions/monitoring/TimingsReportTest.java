@@ -0,0 +1,65 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.*;
+
+class TimingsReportTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    @DisplayName("Children are indented under their parent, in start order")
+    void tree() {
+        var report = lines(List.of(
+                span(1, 0, "solutions", 0, 100),
+                span(2, 1, "loadSchedule", 0, 10),
+                span(3, 1, "loadCourse", 10, 60),
+                span(4, 3, "fetchTeams", 10, 40)));
+
+        assertEquals(4, report.size());
+        assertTrue(report.get(0).matches(" +100\\.0 ms 100\\.0%  solutions +█{30}"), report.get(0));
+        assertTrue(report.get(1).matches(" +10\\.0 ms +10\\.0%    loadSchedule +█{3}"), report.get(1));
+        assertTrue(report.get(2).contains("50.0 ms  50.0%    loadCourse"), report.get(2));
+        assertTrue(report.get(3).contains("30.0 ms  30.0%      fetchTeams"), report.get(3));
+    }
+
+    @Test
+    @DisplayName("Siblings with the same name are added up")
+    void aggregation() {
+        var report = lines(List.of(
+                span(1, 0, "accessMatrix", 0, 100),
+                span(2, 1, "loadGroup", 0, 80),
+                span(3, 1, "loadGroup", 0, 90),
+                span(4, 2, "fetchRepositoriesForTeam", 0, 70),
+                span(5, 3, "fetchRepositoriesForTeam", 0, 80)));
+
+        assertEquals(3, report.size());
+        assertTrue(report.get(1).contains("170.0 ms 170.0%    loadGroup ×2"), report.get(1));
+        assertTrue(report.get(2).contains("150.0 ms 150.0%      fetchRepositoriesForTeam ×2"), report.get(2));
+    }
+
+    @Test
+    @DisplayName("Spans whose parent did not finish are shown as roots")
+    void orphans() {
+        var report = lines(List.of(span(2, 1, "fetchTeams", 0, 10)));
+
+        assertEquals(1, report.size());
+        assertTrue(report.get(0).contains("fetchTeams"));
+    }
+
+    @Test
+    void empty() {
+        assertEquals("No timings were recorded." + System.lineSeparator(), TimingsReport.format(List.of()));
+    }
+
+    private static List<String> lines(List<SpanRecord> spans) {
+        return TimingsReport.format(spans).lines().toList();
+    }
+
+    private static SpanRecord span(long id, long parentId, String name, long startMs, long endMs) {
+        return new SpanRecord(id, parentId, name, null, 1, "main", startMs * MS, endMs * MS);
+    }
+}
@@ -0,0 +1,112 @@
+package es.uniovi.raul.solutions.monitoring;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class TracerTest {
+
+    @BeforeEach
+    void setUp() {
+        Tracer.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Tracer.reset();
+    }
+
+    @Test
+    @DisplayName("Nothing is recorded while tracing is disabled")
+    void disabled() {
+        try (var span = Tracer.span("work")) {
+            assertSame(Span.NOOP, span);
+        }
+
+        assertTrue(Tracer.finishedSpans().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A span opened inside another one is its child")
+    void nesting() {
+        Tracer.enable();
+
+        try (var parent = Tracer.span("parent")) {
+            try (var child = Tracer.span("child", "detail")) {
+                // Work
+            }
+        }
+        try (var other = Tracer.span("other")) {
+            // Work
+        }
+
+        var spans = Tracer.finishedSpans();
+        assertEquals(3, spans.size());
+        var parent = spans.get(0);
+        var child = spans.get(1);
+        var other = spans.get(2);
+
+        assertEquals("parent", parent.name());
+        assertEquals(0, parent.parentId());
+        assertEquals(parent.id(), child.parentId());
+        assertEquals("detail", child.detail());
+        assertEquals(0, other.parentId());
+        assertTrue(parent.durationNanos() >= child.durationNanos());
+    }
+
+    @Test
+    @DisplayName("Spans of the threads started inside a span are its children")
+    void threads() throws Exception {
+        Tracer.enable();
+
+        try (var parent = Tracer.span("parent");
+                var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> Tracer.span("inThread").close()).get();
+        }
+
+        var spans = Tracer.finishedSpans();
+        var parent = spans.stream().filter(span -> span.name().equals("parent")).findFirst().orElseThrow();
+        var inThread = spans.stream().filter(span -> span.name().equals("inThread")).findFirst().orElseThrow();
+        assertEquals(parent.id(), inThread.parentId());
+        assertNotEquals(parent.threadId(), inThread.threadId());
+    }
+
+    @Test
+    @DisplayName("Closing a span twice records it once")
+    void closeTwice() {
+        Tracer.enable();
+
+        var span = Tracer.span("work");
+        span.close();
+        span.close();
+
+        assertEquals(1, Tracer.finishedSpans().size());
+    }
+
+    @Test
+    @DisplayName("The Chrome trace has a complete event per span and the thread names")
+    void chromeTrace() throws Exception {
+        var spans = java.util.List.of(
+                new SpanRecord(1, 0, "main", null, 1, "main", 1_000_000, 5_000_000),
+                new SpanRecord(2, 1, "fetchTeams", "GET /orgs/org/teams", 7, "", 2_000_000, 3_500_000));
+
+        var json = new ObjectMapper().readTree(ChromeTrace.toJson(spans));
+        var events = json.get("traceEvents");
+
+        var fetch = events.get(1);
+        assertEquals("fetchTeams", fetch.get("name").asText());
+        assertEquals("X", fetch.get("ph").asText());
+        assertEquals(1000.0, fetch.get("ts").asDouble()); // Microseconds since the first span
+        assertEquals(1500.0, fetch.get("dur").asDouble());
+        assertEquals(7, fetch.get("tid").asLong());
+        assertEquals("GET /orgs/org/teams", fetch.get("args").get("detail").asText());
+
+        var metadata = events.get(3);
+        assertEquals("thread_name", metadata.get("name").asText());
+        assertEquals("thread 7", metadata.get("args").get("name").asText()); // Virtual threads have no name
+    }
+}
@@ -0,0 +1,177 @@
+package es.uniovi.raul.solutions.server;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.*;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import es.uniovi.raul.solutions.course.*;
+import es.uniovi.raul.solutions.course.naming.RegexSolutionDetector;
+import es.uniovi.raul.solutions.github.*;
+
+/**
+ * Tests the REST API of {@link CourseServer} against a local GitHub simulator.
+ */
+class CourseServerTest {
+
+    private GithubSimulator github;
+    private CourseServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        github = new GithubSimulator("org")
+                .addRepositories("server-a-solution", "server-b-solution", "notes")
+                .addTeam("group G1", "g1", "server-a-solution")
+                .addTeam("group G 2", "g2");
+
+        var api = new GithubApiImpl("test-token", github.url());
+        var detector = new RegexSolutionDetector(".*solution$");
+        var groups = List.of(
+                new Group("G1", "g1", Optional.empty(), api, "org", detector),
+                new Group("G 2", "g2", Optional.empty(), api, "org", detector));
+        var course = new Course(groups, List.of("server-a-solution", "server-b-solution"));
+
+        server = new CourseServer(course, 0);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        github.close();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path)).build();
+        return client.send(request, BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return post(path, body, "application/json", "Bearer " + server.token());
+    }
+
+    private HttpResponse<String> post(String path, String body, String contentType, String authorization)
+            throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path))
+                .header("Content-Type", contentType)
+                .header("Authorization", authorization)
+                .POST(BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, BodyHandlers.ofString());
+    }
+
+    @Test
+    @DisplayName("Lists the groups and the solutions with their visibility")
+    void listsGroupsAndSolutions() throws Exception {
+        var groups = get("/groups");
+        assertEquals(200, groups.statusCode());
+        assertEquals("[{\"name\":\"G1\"},{\"name\":\"G 2\"}]", groups.body());
+
+        var solutions = get("/groups/G1/solutions");
+        assertEquals(200, solutions.statusCode());
+        assertEquals("[{\"solution\":\"server-a-solution\",\"accessible\":true},"
+                + "{\"solution\":\"server-b-solution\",\"accessible\":false}]", solutions.body());
+
+        assertEquals(200, get("/groups/G%202/solutions").statusCode());
+        assertEquals("[\"server-a-solution\",\"server-b-solution\"]", get("/solutions").body());
+    }
+
+    @Test
+    @DisplayName("Grant and revoke change the access in GitHub and in the cached state")
+    void grantAndRevoke() throws Exception {
+        assertEquals(204, post("/groups/G1/grant", "{\"solution\":\"server-b-solution\"}").statusCode());
+        assertEquals(Set.of("server-a-solution", "server-b-solution"), github.accessOf("g1"));
+
+        assertEquals(204, post("/groups/G1/revoke", "{\"solution\":\"server-a-solution\"}").statusCode());
+        assertEquals(Set.of("server-b-solution"), github.accessOf("g1"));
+
+        var solutions = mapper.readTree(get("/groups/G1/solutions").body());
+        assertFalse(solutions.get(0).get("accessible").asBoolean());
+        assertTrue(solutions.get(1).get("accessible").asBoolean());
+    }
+
+    @Test
+    @DisplayName("Exposes the metrics of the GitHub requests and the grants in the Prometheus format")
+    void metrics() throws Exception {
+        post("/groups/G1/grant", "{\"solution\":\"server-b-solution\"}");
+        get("/groups/G1/solutions");
+
+        var response = get("/metrics");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain"));
+
+        var metrics = response.body();
+        assertTrue(metrics.contains("# TYPE solutions_github_requests_total counter"), metrics);
+        assertTrue(metrics.contains("solutions_github_requests_total{endpoint=\"grantAccess\",status=\"204\"}"),
+                metrics);
+        assertTrue(metrics.contains("solutions_github_request_duration_seconds_count{endpoint=\"fetchRepositoriesForTeam\"}"),
+                metrics);
+        assertTrue(metrics.contains("solutions_access_changes_total{operation=\"grant\",result=\"success\"}"), metrics);
+        assertTrue(metrics.contains("solutions_group_cache_misses_total"), metrics);
+    }
+
+    @Test
+    @DisplayName("Invalid requests get 4xx responses")
+    void invalidRequests() throws Exception {
+        assertEquals(404, get("/groups/G9/solutions").statusCode());
+        assertEquals(404, get("/groups/G1/unknown").statusCode());
+        assertEquals(404, get("/groupsX").statusCode());
+        assertEquals(405, get("/groups/G1/grant").statusCode());
+        assertEquals(400, post("/groups/G1/grant", "not json").statusCode());
+        assertEquals(404, post("/groups/G1/grant", "{\"solution\":\"notes\"}").statusCode());
+    }
+
+    @Test
+    @DisplayName("Grants and revokes need the token and a JSON content type")
+    void changesNeedTokenAndJson() throws Exception {
+        var body = "{\"solution\":\"server-b-solution\"}";
+
+        var response = post("/groups/G1/grant", body, "application/json", "Bearer wrong");
+        assertEquals(401, response.statusCode());
+        assertEquals("Bearer", response.headers().firstValue("WWW-Authenticate").orElse(""));
+        assertEquals(415, post("/groups/G1/grant", body, "text/plain", "Bearer " + server.token()).statusCode());
+        assertEquals(204, post("/groups/G1/grant", body, "application/json; charset=utf-8",
+                "Bearer " + server.token()).statusCode());
+        assertEquals(1, github.requestCount("PUT", "/orgs/org/teams/g1"));
+    }
+
+    @Test
+    @DisplayName("Failing to reach GitHub gets a 502 response")
+    void githubUnreachable() throws Exception {
+        github.close();
+
+        var response = get("/groups/G1/solutions");
+
+        assertEquals(502, response.statusCode());
+        assertTrue(response.body().contains("GitHub could not be reached"), response.body());
+    }
+
+    @Test
+    @DisplayName("Load test: many concurrent requests are served from the warm cache with one GitHub fetch")
+    void concurrentRequestsShareTheCache() throws Exception {
+        final int requests = 500;
+        var futures = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            var request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + server.port() + "/groups/G1/solutions")).build();
+            futures.add(client.sendAsync(request, BodyHandlers.ofString()));
+        }
+        for (var future : futures)
+            assertEquals(200, future.get(30, TimeUnit.SECONDS).statusCode());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(1, github.requestCount("GET", "/orgs/org/teams/g1/repos"));
+        assertTrue(elapsedMillis < 20_000, "Took " + elapsedMillis + " ms");
+    }
+}